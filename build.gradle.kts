@@ -11,8 +11,8 @@ repositories {
 }
 
 java {
-    // use o JDK que você tiver (17, 19, 21…)
-    toolchain { languageVersion.set(JavaLanguageVersion.of(17)) }
+    // JDK 21+: os carros podem rodar em threads virtuais (Thread.ofVirtual)
+    toolchain { languageVersion.set(JavaLanguageVersion.of(21)) }
 }
 
 tasks.withType<JavaCompile>().configureEach {
@@ -35,6 +35,50 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Runner headless: só enxerga as classes do main (sem JavaFX no classpath)
+sourceSets {
+    create("headless") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+tasks.register<JavaExec>("runHeadless") {
+    group = "application"
+    description = "Roda a simulação sem interface e imprime a vazão (ex.: --args=\"--lock CAS --segundos 10\")"
+    classpath = sourceSets["headless"].runtimeClasspath
+    mainClass.set("app.headless.HeadlessRunner")
+    jvmArgs("-Dfile.encoding=UTF-8")
+}
+
+// Conversor de malha texto -> binário: ./gradlew convertMesh --args="malha.txt malha.bin"
+tasks.register<JavaExec>("convertMesh") {
+    group = "application"
+    description = "Converte uma malha em texto para o formato binário (utils.MeshBinary)"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("utils.MeshBinary")
+    jvmArgs("-Dfile.encoding=UTF-8")
+}
+
+// Benchmarks JMH (src/jmh/java): ./gradlew jmh --args="-p mode=CAS"
+val jmhSourceSet: SourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Roda os benchmarks JMH dos CellLockGrid"
+    classpath = jmhSourceSet.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs("-Dfile.encoding=UTF-8")
+}
+
 application {
     mainClass.set("app.Main")
     applicationDefaultJvmArgs = listOf("-Dfile.encoding=UTF-8")
@@ -0,0 +1,179 @@
+package app.headless;
+
+import app.core.*;
+import app.model.Car;
+import app.model.Grid;
+import app.model.SpawnIndex;
+import utils.MatrixParser;
+import utils.MeshBinary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executa a simulação sem interface gráfica (sem JavaFX no classpath) e imprime a vazão.
+ *
+ * Uso (todos opcionais):
+ * <pre>
+ *   --malha /malhas/malha-exemplo-2.txt   recurso do classpath ou arquivo no disco (texto ou binário)
+ *   --lock SEMAPHORE|MONITOR|MONITOR_LOCK|MONITOR_FIFO|CAS|CROSS_MASK
+ *   --exec PLATFORM|VIRTUAL|TICK|REGIONS
+ *   --retry FIXED|ADAPTIVE                 nova tentativa nos cruzamentos (ignorado nos motores de ticks)
+ *   --segundos 30                          tempo de execução (ignorado se --carros for informado)
+ *   --carros 1000                          roda até N carros saírem da malha
+ *   --max 200                              limite de carros ativos
+ *   --intervalo 10                         intervalo mínimo entre inserções (ms)
+ *   --regioes 4                            regiões (threads) do REGIONS; padrão = núcleos disponíveis
+ *   --travamentos resolver|detectar        retira um carro de cada travamento circular, ou só relata
+ *   --metricas locks.csv                   grava a disputa por célula ao final (.json = JSON); sem motor de ticks
+ * </pre>
+ *
+ * Via Gradle: {@code ./gradlew runHeadless --args="--lock CAS --exec VIRTUAL --segundos 10"}
+ */
+public final class HeadlessRunner {
+
+    /** Mesmos parâmetros da UI (ver {@code app.Main}). */
+    private static final int TICK_MS = 10;
+    private static final long TICK_SEED = 42L;
+    private static final int MIN_STEP_MS = 200, MAX_STEP_MS = 600;
+
+    private HeadlessRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        String mesh = "/malhas/malha-exemplo-2.txt";
+        LockMode lockMode = LockMode.SEMAPHORE;
+        ExecutionMode execMode = ExecutionMode.PLATFORM;
+        RetryMode retryMode = RetryMode.FIXED;
+        long seconds = 30;
+        long targetCars = 0;
+        int maxCars = 200;
+        int minInsertMs = 10;
+        Path metricsFile = null;
+        boolean resolveGridlocks = true;
+        int regionCount = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String value = (i + 1 < args.length) ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--malha"     -> mesh = value;
+                case "--lock"      -> lockMode = LockMode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--exec"      -> execMode = ExecutionMode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--retry"     -> retryMode = RetryMode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--segundos"  -> seconds = Long.parseLong(value);
+                case "--carros"    -> targetCars = Long.parseLong(value);
+                case "--max"       -> maxCars = Integer.parseInt(value);
+                case "--intervalo" -> minInsertMs = Integer.parseInt(value);
+                case "--metricas"  -> metricsFile = Path.of(value);
+                case "--regioes"   -> regionCount = Integer.parseInt(value);
+                case "--travamentos" -> resolveGridlocks = !"detectar".equalsIgnoreCase(value);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+            i++;
+        }
+
+        long loadStart = System.nanoTime();
+        Grid grid = loadGrid(mesh);
+        SpawnIndex spawnIndex = SpawnIndex.forGrid(grid);
+        long loadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+
+        SimulationState sim = new SimulationState(grid.rows, grid.cols, maxCars);
+        final int maxActive = maxCars, insertMs = minInsertMs;
+
+        boolean tickMode = execMode == ExecutionMode.TICK || execMode == ExecutionMode.REGIONS;
+        CellLockMetrics lockMetrics = (metricsFile != null && !tickMode)
+                ? new CellLockMetrics(grid.rows, grid.cols) : null;
+        InserterThread inserter = null;
+        TickEngine tickEngine = null;
+        RegionTickEngine regionEngine = null;
+        GridlockWatchdog watchdog = null;
+        if (execMode == ExecutionMode.TICK) {
+            tickEngine = new TickEngine(grid, sim, TICK_MS, Runtime.getRuntime().availableProcessors(), TICK_SEED,
+                    () -> maxActive, () -> insertMs, MIN_STEP_MS, MAX_STEP_MS, spawnIndex::sample);
+            tickEngine.start();
+        } else if (execMode == ExecutionMode.REGIONS) {
+            regionEngine = new RegionTickEngine(grid, sim, TICK_MS, regionCount, TICK_SEED,
+                    () -> maxActive, () -> insertMs, MIN_STEP_MS, MAX_STEP_MS, spawnIndex::sample);
+            regionEngine.start();
+            System.out.printf("regiões: %d%n", regionEngine.regionCount());
+        } else {
+            CellLockGrid locks = lockMetrics != null
+                    ? CellLockFactory.create(lockMode, grid, lockMetrics)
+                    : CellLockFactory.create(lockMode, grid);
+            RetryPolicy retry = RetryPolicyFactory.create(retryMode, grid);
+            inserter = new InserterThread(grid, sim, () -> locks, CarExecutorFactory.create(execMode), () -> retry,
+                    () -> maxActive, () -> insertMs,
+                    () -> MIN_STEP_MS + ThreadLocalRandom.current().nextInt(MAX_STEP_MS - MIN_STEP_MS),
+                    () -> spawnIndex.sample(ThreadLocalRandom.current()));
+            inserter.start();
+
+            // Carros em thread podem travar em ciclo esperando células (o motor de ticks não bloqueia)
+            InserterThread ins = inserter;
+            watchdog = new GridlockWatchdog(sim, GridlockWatchdog.DEFAULT_PERIOD_MS, ins::stopCar,
+                    (ids, cells, victim) -> System.out.printf(Locale.ROOT, "  travamento: %d carros em ciclo%s%n",
+                            ids.length, victim != 0 ? ", retirado #" + victim : ""),
+                    resolveGridlocks);
+            watchdog.start();
+        }
+
+        System.out.printf(Locale.ROOT, "malha=%s (%dx%d, %d ms) lock=%s exec=%s retry=%s max=%d intervalo=%dms%n",
+                mesh, grid.rows, grid.cols, loadMs, lockMode, execMode, retryMode, maxCars, minInsertMs);
+
+        // Roda até o tempo acabar ou até N carros saírem, reportando a cada segundo
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        long lastExited = 0;
+        while (targetCars > 0 ? sim.exitedCount() < targetCars : System.nanoTime() < deadline) {
+            Thread.sleep(1000);
+            long exited = sim.exitedCount();
+            System.out.printf(Locale.ROOT, "  t=%5.1fs ativos=%d saíram=%d (+%d/s) viagem p99=%.0fms%n",
+                    (System.nanoTime() - start) / 1e9, sim.activeCount(), exited, exited - lastExited,
+                    sim.stats().travelTime().percentile(99) / 1e6);
+            lastExited = exited;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long exited = sim.exitedCount();
+
+        // Encerra tudo (mesma sequência do stopAll da UI)
+        if (watchdog != null) {
+            watchdog.shutdown();
+        }
+        if (inserter != null) {
+            for (Car c : inserter.getSpawned()) c.requestStop();
+            inserter.shutdown();
+        }
+        if (tickEngine != null) {
+            tickEngine.shutdown();
+            tickEngine.join();
+        }
+        if (regionEngine != null) {
+            regionEngine.shutdown();
+            regionEngine.join();
+        }
+
+        if (lockMetrics != null) {
+            lockMetrics.write(metricsFile);
+            System.out.println("métricas dos locks: " + metricsFile.toAbsolutePath());
+        }
+
+        System.out.println(sim.stats().summary());
+        if (watchdog != null) {
+            System.out.printf("travamentos: detectados=%d resolvidos=%d%n", watchdog.detected(), watchdog.resolved());
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf(Locale.ROOT, "tempo=%.2fs saíram=%d vazão=%.2f carros/s heap=%d MB%n",
+                elapsed, exited, exited / elapsed, (rt.totalMemory() - rt.freeMemory()) >> 20);
+    }
+
+    /** Procura primeiro no disco (formato binário detectado pelo magic); se não existir, trata como recurso do classpath. */
+    private static Grid loadGrid(String mesh) throws Exception {
+        Path file = Path.of(mesh);
+        if (Files.isRegularFile(file)) {
+            return MeshBinary.isBinary(file) ? MeshBinary.read(file) : MatrixParser.readGrid(file);
+        }
+        return MatrixParser.readGridResource(mesh);
+    }
+}
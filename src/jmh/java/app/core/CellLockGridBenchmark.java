@@ -0,0 +1,120 @@
+package app.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das implementações de {@link CellLockGrid} (uma por {@link LockMode}).
+ *
+ * Cenários:
+ * - {@code uncontended}: uma thread, acquire/release em células espalhadas pelo grid (custo base + cache).
+ * - {@code handoff}: duas threads andando pelas mesmas duas células vizinhas, como carros numa via.
+ * - {@code crossing}: 4 threads disputando caminhos de 3 a 5 células num bloco 2x2 com {@code acquireAll}.
+ *
+ * Cada cenário mede vazão (ops/s) e tempo médio por operação. Rodar com {@code ./gradlew jmh}
+ * (argumentos do JMH via {@code --args}, ex.: {@code --args="-p mode=CAS,SEMAPHORE -p size=100"}).
+ * O {@code @Param} de {@code mode} não lista valores: o JMH percorre todas as constantes do enum,
+ * então um modo novo do {@link LockMode} entra no benchmark sem mexer aqui.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+@State(Scope.Benchmark)
+public class CellLockGridBenchmark {
+
+    /** Mesmo timeout usado pelos carros ao reservar um cruzamento. */
+    private static final long TIMEOUT_MS = 200;
+
+    @Param
+    public LockMode mode;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private CellLockGrid locks;
+    /** Top-left do bloco 2x2 usado nos cenários com disputa (centro do grid). */
+    private int mid;
+    /**
+     * Caminhos de travessia do bloco 2x2 (ids já ordenados, como no {@code CrossPlanTable}):
+     * internas + 1ª célula fora, de 3 a 5 células.
+     */
+    private int[][] paths;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mid = size / 2 - 1;
+        // CROSS_MASK precisa saber onde está o bloco 2x2 (o factory tira isso da malha)
+        locks = mode == LockMode.CROSS_MASK
+                ? new CellLockGridCrossMask(size, size, new int[] {id(mid, mid)})
+                : CellLockFactory.create(mode, size, size);
+        int a = id(mid, mid), b = id(mid, mid + 1), c = id(mid + 1, mid), d = id(mid + 1, mid + 1);
+        paths = new int[][] {
+                sorted(a, b, id(mid, mid + 2)),                    // reto (2 internas + saída)
+                sorted(c, a, id(mid - 1, mid)),                    // reto no outro sentido
+                sorted(b, d, c, id(mid + 1, mid - 1)),             // conversão (3 internas + saída)
+                sorted(d, c, a, b, id(mid - 1, mid + 1)),          // volta quase completa (4 internas + saída)
+        };
+    }
+
+    private int id(int r, int c) {
+        return r * size + c;
+    }
+
+    private static int[] sorted(int... ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /* ===================== sem disputa ===================== */
+
+    /** Posição corrente de cada thread; anda com passo primo para espalhar os acessos pelo grid. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void uncontended(Cursor cur) throws InterruptedException {
+        int cells = size * size;
+        int i = cur.next;
+        cur.next = (i + 7919) % cells;
+        int r = i / size, c = i % size;
+        locks.acquire(r, c);
+        locks.release(r, c);
+    }
+
+    /* ===================== handoff entre vizinhos ===================== */
+
+    /**
+     * Um "passo" de carro: trava a célula da frente antes de soltar a de trás.
+     * As duas threads seguem o mesmo sentido (mesma ordem de aquisição), então não há deadlock.
+     */
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(2)
+    public void handoff() throws InterruptedException {
+        locks.acquire(mid, mid);
+        locks.acquire(mid, mid + 1);
+        locks.release(mid, mid);
+        locks.release(mid, mid + 1);
+    }
+
+    /* ===================== acquireAll num cruzamento ===================== */
+
+    @Benchmark
+    @Threads(4)
+    public void crossing(Cursor cur, Blackhole bh) throws InterruptedException {
+        int[] path = paths[cur.next++ & 3];
+        boolean ok = locks.acquireAll(path, 0, path.length, TIMEOUT_MS);
+        if (ok) {
+            locks.releaseAll(path, 0, path.length);
+        }
+        bh.consume(ok);
+    }
+}
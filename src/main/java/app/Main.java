@@ -2,7 +2,8 @@ package app;
 
 import app.core.*;
 import app.model.Car;
-import app.model.RowSegment;
+import app.model.Grid;
+import app.model.SpawnIndex;
 import app.view.MatrixCanvas;
 import app.core.SimulationState;
 import app.view.Ui;
@@ -10,11 +11,13 @@ import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.scene.control.Button;
 import javafx.scene.control.Spinner;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import utils.MatrixParser;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.IntSupplier;
 
@@ -23,51 +26,106 @@ public class Main extends Application {
     private MatrixCanvas matrixCanvas;
 
     /** Armazena a malha */
-    public static int[][] gridRef;
+    public static Grid gridRef;
+
+    /** Pontos de entrada da malha carregada (construído uma vez por malha) */
+    private SpawnIndex spawnIndex;
 
     // Estado da simulação
-    private final SimulationState simState = new SimulationState();
+    private SimulationState simState;
 
     // Renderização
     private AnimationTimer painter;
 
-    // Controle de execução
-    private InserterThread inserter;
+    // Controle de execução (lido também pelo watchdog de travamentos)
+    private volatile InserterThread inserter;
+
+    /** Detecta (e desfaz) travamentos circulares entre carros; roda durante toda a aplicação. */
+    private GridlockWatchdog gridlockWatchdog;
+
+    // Motor de ticks (usado no lugar do inserter quando o modo de execução é TICK)
+    private TickEngine tickEngine;
+    // Motor de ticks por regiões (modo REGIONS): uma thread por região da malha
+    private RegionTickEngine regionEngine;
+
+    /** Duração de um tick e semente do motor de ticks (mesma semente = mesma simulação). */
+    private static final int TICK_MS = 10;
+    private static final long TICK_SEED = 42L;
+
+    // Mecanismo de exclusão mútua: a grade do modo corrente e a usada pelos carros novos
+    // (a mesma, decorada com o InstrumentedCellLockGrid só enquanto o mapa de calor está ligado)
+    private CellLockGrid baseLocks;
+    private volatile CellLockGrid cellLocks;
+    private boolean collectLockMetrics;
 
-    // Mecanismo de exclusão mútua
-    private CellLockGrid cellLocks;
+    /** Disputa por célula (mapa de calor / exportação); sobrevive à troca do mecanismo de locks. */
+    private CellLockMetrics lockMetrics;
 
     private LockMode currentLockMode = LockMode.SEMAPHORE;
 
+    /** Política de nova tentativa nos cruzamentos; cada carro pega a que estiver em vigor ao ser inserido. */
+    private volatile RetryPolicy retryPolicy;
+    private RetryMode currentRetryMode = RetryMode.FIXED;
+
+    // Onde os carros rodam (threads de plataforma ou virtuais)
+    private ExecutionMode currentExecutionMode = ExecutionMode.PLATFORM;
+
     @Override
     public void start(Stage stage) throws Exception {
         // Carrega a malha
-        int[][] grid = loadGridFromResources("/malhas/malha-exemplo-2.txt");
+        Grid grid = loadGridFromResources("/malhas/malha-exemplo-2.txt");
         gridRef = grid;
+        spawnIndex = SpawnIndex.forGrid(grid);
+        simState = new SimulationState(grid.rows, grid.cols);
+        lockMetrics = new CellLockMetrics(grid.rows, grid.cols);
 
         // Canvas de desenho
         matrixCanvas = new MatrixCanvas();
         matrixCanvas.setGrid(grid);
+        matrixCanvas.setState(simState);
 
         Ui ui = new Ui();
         ui.buildLayout(stage, matrixCanvas);
-        addActionListeners(ui);
+        addActionListeners(ui, stage);
+
+        gridlockWatchdog = new GridlockWatchdog(
+                simState,
+                GridlockWatchdog.DEFAULT_PERIOD_MS,
+                id -> {
+                    InserterThread current = inserter;
+                    return current != null && current.stopCar(id);
+                },
+                Main::reportGridlock,
+                ui.getChkResolverTravamentos().isSelected()
+        );
+        gridlockWatchdog.start();
 
         // cria os locks no modo selecionado inicialmente (padrão do ComboBox)
         currentLockMode = resolveLockMode(ui.getCbExclusao().getValue());
-        cellLocks = CellLockFactory.create(currentLockMode, gridRef.length, gridRef[0].length);
+        currentExecutionMode = resolveExecutionMode(ui.getCbExecucao().getValue());
+        createLocks();
+        currentRetryMode = resolveRetryMode(ui.getCbRetentativa().getValue());
+        retryPolicy = RetryPolicyFactory.create(currentRetryMode, gridRef);
 
-        // painter: executa o método handle() aprox 60 vezes por segundo
+        // painter: executa o método handle() aprox 60 vezes por segundo (repinta só as células alteradas)
+        // e atualiza a barra de status com as estatísticas das viagens uma vez por segundo
         painter = new AnimationTimer() {
+            private long lastStats;
+
             @Override
             public void handle(long now) {
-                matrixCanvas.setCars(simState.snapshotPositions());
+                matrixCanvas.refresh();
+                if (now - lastStats >= 1_000_000_000L) {
+                    lastStats = now;
+                    ui.getLbEstatisticas().setText(simState.stats().summary()
+                            + " | travamentos=" + gridlockWatchdog.detected());
+                }
             }
         };
         painter.start();
     }
 
-    private void addActionListeners(Ui ui) {
+    private void addActionListeners(Ui ui, Stage stage) {
         Button btnIniciar = ui.getBtnIniciar();
         Button btnEncerrar = ui.getBtnEncerrar();
         Button btnEncerrarInsercao = ui.getBtnEncerrarInsercao();
@@ -77,6 +135,10 @@ public class Main extends Application {
         // Velocidade aleatória para cada carro/thread
         IntSupplier carStepMsSupplier =  () -> 200 + ThreadLocalRandom.current().nextInt(400);
 
+        // O inserter só acorda por evento: avisa quando o limite de carros ou o intervalo mudam
+        spnMaxVeiculos.valueProperty().addListener((obs, oldV, newV) -> wakeInserter());
+        spnIntervaloMs.valueProperty().addListener((obs, oldV, newV) -> wakeInserter());
+
         // Atualização do mecanismo de exclusão mútua
         ui.getCbExclusao().valueProperty().addListener((obs, oldV, newV) -> {
             LockMode selected = resolveLockMode(newV);
@@ -87,9 +149,10 @@ public class Main extends Application {
             // encerra a simulação atual
             stopAll();
 
-            // recria a estrutura de locks com o modo selecionado
+            // recria a estrutura de locks com o modo selecionado (estatísticas só da execução nova)
+            simState.stats().reset();
             currentLockMode = selected;
-            cellLocks = CellLockFactory.create(currentLockMode, gridRef.length, gridRef[0].length);
+            createLocks();
 
             // reinicia a inserção
             ensureInserterRunning(
@@ -98,7 +161,33 @@ public class Main extends Application {
                     () -> 200 + java.util.concurrent.ThreadLocalRandom.current().nextInt(400)
             );
             // @todo validação para só resumir se já estava inserindo antes da mudança
-            inserter.resumeInserting();
+            resumeInserting();
+        });
+
+        // Atualização do modo de execução dos carros
+        ui.getCbExecucao().valueProperty().addListener((obs, oldV, newV) -> {
+            ExecutionMode selected = resolveExecutionMode(newV);
+
+            // Se não mudou, não faz nada
+            if (selected == currentExecutionMode) return;
+
+            // encerra a simulação atual; os carros novos já nascem no modo selecionado
+            stopAll();
+            simState.stats().reset();
+            currentExecutionMode = selected;
+
+            ensureInserterRunning(spnMaxVeiculos::getValue, spnIntervaloMs::getValue, carStepMsSupplier);
+            resumeInserting();
+        });
+
+        // Troca da política de nova tentativa: sem reiniciar, os carros novos já nascem com ela
+        ui.getCbRetentativa().valueProperty().addListener((obs, oldV, newV) -> {
+            RetryMode selected = resolveRetryMode(newV);
+            if (selected == currentRetryMode) return;
+
+            currentRetryMode = selected;
+            retryPolicy = RetryPolicyFactory.create(currentRetryMode, gridRef);
+            simState.stats().reset();
         });
 
         // Inicia a simulação
@@ -107,7 +196,10 @@ public class Main extends Application {
             LockMode selected = resolveLockMode(ui.getCbExclusao().getValue());
 
             // Se há simulação em andamento e o modo mudou, reinicie para aplicar mudança
-            boolean running = (inserter != null && inserter.isAlive()) || simState.activeCount() > 0;
+            boolean running = (inserter != null && inserter.isAlive())
+                    || (tickEngine != null && tickEngine.isAlive())
+                    || (regionEngine != null && regionEngine.isAlive())
+                    || simState.activeCount() > 0;
             if (running && selected != currentLockMode) {
                 stopAll();
             }
@@ -115,12 +207,12 @@ public class Main extends Application {
             // Se o modo mudou (ou ainda não tínhamos lock), recrie os locks
             if (selected != currentLockMode || cellLocks == null) {
                 currentLockMode = selected;
-                cellLocks = CellLockFactory.create(currentLockMode, gridRef.length, gridRef[0].length);
+                createLocks();
             }
 
             // Sobe o inserter
             ensureInserterRunning(spnMaxVeiculos::getValue, spnIntervaloMs::getValue, carStepMsSupplier);
-            inserter.resumeInserting();
+            resumeInserting();
         });
 
         // Encerrar a inserção, não mata os carros que já estão rodando
@@ -128,12 +220,50 @@ public class Main extends Application {
             if (inserter != null) {
                 inserter.stopInserting();
             }
+            if (tickEngine != null) {
+                tickEngine.stopInserting();
+            }
+            if (regionEngine != null) {
+                regionEngine.stopInserting();
+            }
         });
 
         // Finaliza toda a simulação imediatamente
         btnEncerrar.setOnAction(e -> {
             stopAll();
         });
+
+        ui.getChkResolverTravamentos().selectedProperty().addListener((obs, oldV, newV) -> {
+            if (gridlockWatchdog != null) gridlockWatchdog.setResolve(newV);
+        });
+
+        // Mapa de calor da disputa pelos locks (não se aplica ao motor de ticks, que não usa locks).
+        // A disputa só é medida com ele ligado: a medição custa em toda aquisição e distorceria a
+        // comparação entre os mecanismos. Os carros novos já nascem com os locks novos (a grade de
+        // baixo é a mesma, então carros com e sem medição continuam se excluindo)
+        ui.getChkMapaCalor().selectedProperty().addListener((obs, oldV, newV) -> {
+            collectLockMetrics = newV;
+            instrumentLocks();
+            matrixCanvas.setHeat(newV ? lockMetrics : null);
+        });
+        // Só há o que exportar com a medição ligada
+        ui.getBtnExportarMetricas().disableProperty().bind(ui.getChkMapaCalor().selectedProperty().not());
+
+        // Exporta as métricas por célula (CSV, ou JSON se o arquivo terminar em .json)
+        ui.getBtnExportarMetricas().setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Exportar métricas dos locks");
+            chooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                    new FileChooser.ExtensionFilter("JSON", "*.json"));
+            File file = chooser.showSaveDialog(stage);
+            if (file == null) return;
+            try {
+                lockMetrics.write(file.toPath());
+            } catch (IOException ex) {
+                System.err.println("Falha ao exportar métricas: " + ex.getMessage());
+            }
+        });
     }
 
     /**
@@ -143,40 +273,121 @@ public class Main extends Application {
      * @param carStep
      */
     private void ensureInserterRunning(IntSupplier maxCars, IntSupplier minInsertMs, IntSupplier carStep) {
+        if (currentExecutionMode == ExecutionMode.TICK) {
+            // No motor de ticks não há thread por carro: o próprio motor insere e avança os carros
+            if (tickEngine == null || !tickEngine.isAlive()) {
+                tickEngine = new TickEngine(
+                        gridRef,
+                        simState,
+                        TICK_MS,
+                        Runtime.getRuntime().availableProcessors(),
+                        TICK_SEED,
+                        maxCars,
+                        minInsertMs,
+                        200, 600, // mesma faixa de velocidade do carStep
+                        spawnIndex::sample
+                );
+                tickEngine.start();
+            }
+            return;
+        }
+        if (currentExecutionMode == ExecutionMode.REGIONS) {
+            // Idem, com a malha dividida em uma região (thread) por núcleo
+            if (regionEngine == null || !regionEngine.isAlive()) {
+                regionEngine = new RegionTickEngine(
+                        gridRef,
+                        simState,
+                        TICK_MS,
+                        Runtime.getRuntime().availableProcessors(),
+                        TICK_SEED,
+                        maxCars,
+                        minInsertMs,
+                        200, 600, // mesma faixa de velocidade do carStep
+                        spawnIndex::sample
+                );
+                regionEngine.start();
+            }
+            return;
+        }
         if (inserter == null || !inserter.isAlive()) {
             inserter = new InserterThread(
                     gridRef,
                     simState,
-                    cellLocks,
+                    () -> cellLocks,
+                    CarExecutorFactory.create(currentExecutionMode),
+                    () -> retryPolicy,
                     maxCars,
                     minInsertMs, // tempo mínimo de inserção vindo da UI
                     carStep,
-                    () -> RowSegment.findRandomEdgeSegment() // Mecanismo para encontrar a rota de entrada
+                    () -> spawnIndex.sample(ThreadLocalRandom.current()) // Mecanismo para encontrar a rota de entrada
             );
             inserter.start();
         }
     }
 
+    /**
+     * Faz o inserter reavaliar limite/intervalo imediatamente (ele não faz mais polling)
+     */
+    private void wakeInserter() {
+        if (inserter != null) {
+            inserter.wakeUp();
+        }
+    }
+
+    /**
+     * Retoma a inserção no mecanismo que estiver ativo (inserter ou um dos motores de ticks)
+     */
+    private void resumeInserting() {
+        if (inserter != null) {
+            inserter.resumeInserting();
+        }
+        if (tickEngine != null) {
+            tickEngine.resumeInserting();
+        }
+        if (regionEngine != null) {
+            regionEngine.resumeInserting();
+        }
+    }
+
     /**
      * Finaliza a simulação parando a inserção e finalizando todos os carros
      */
     private void stopAll() {
         if (inserter != null) {
-            List<Car> spawned = inserter.getSpawned();
-            for (Car c: spawned) {
+            for (Car c: inserter.getSpawned()) {
                 c.requestStop();
             }
             inserter.shutdown();
             inserter = null;
         }
-        matrixCanvas.clearCars();
+        if (tickEngine != null) {
+            // o motor remove os próprios carros do estado ao encerrar
+            tickEngine.shutdown();
+            tickEngine = null;
+        }
+        if (regionEngine != null) {
+            regionEngine.shutdown();
+            regionEngine = null;
+        }
+        // os carros saem do estado (e da tela) conforme encerram
+        matrixCanvas.redraw();
+    }
+
+    /** Recria os locks no modo corrente (estado de medição mantido). */
+    private void createLocks() {
+        baseLocks = CellLockFactory.create(currentLockMode, gridRef);
+        instrumentLocks();
+    }
+
+    private void instrumentLocks() {
+        cellLocks = collectLockMetrics ? new InstrumentedCellLockGrid(baseLocks, lockMetrics) : baseLocks;
     }
 
-    private int[][] loadGridFromResources(String resourcePath) throws Exception {
+    private Grid loadGridFromResources(String resourcePath) throws Exception {
         try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
             if (in == null)
                 throw new IllegalStateException("Recurso não encontrado: " + resourcePath);
-            return MatrixParser.readMatrix(in);
+            return MatrixParser.readGrid(in);
         }
     }
 
@@ -187,7 +398,53 @@ public class Main extends Application {
      */
     private static LockMode resolveLockMode(String uiValue) {
         if (uiValue == null) return LockMode.SEMAPHORE;
-        return uiValue.toLowerCase().contains("monit") ? LockMode.MONITOR : LockMode.SEMAPHORE;
+        String v = uiValue.toLowerCase();
+        if (v.contains("condition")) return LockMode.MONITOR_LOCK;
+        if (v.contains("fifo")) return LockMode.MONITOR_FIFO;
+        if (v.contains("monit")) return LockMode.MONITOR;
+        if (v.contains("máscara")) return LockMode.CROSS_MASK;
+        if (v.contains("cas")) return LockMode.CAS;
+        return LockMode.SEMAPHORE;
+    }
+
+    /**
+     * Retorna qual modo de execução dos carros foi selecionado com base no valor do ComboBox
+     * @param uiValue
+     * @return
+     */
+    private static ExecutionMode resolveExecutionMode(String uiValue) {
+        if (uiValue == null) return ExecutionMode.PLATFORM;
+        String v = uiValue.toLowerCase();
+        if (v.contains("regi")) return ExecutionMode.REGIONS;
+        if (v.contains("tick")) return ExecutionMode.TICK;
+        return v.contains("virtua") ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+    }
+
+    /**
+     * Retorna qual política de nova tentativa foi selecionada com base no valor do ComboBox
+     * @param uiValue
+     * @return
+     */
+    private static RetryMode resolveRetryMode(String uiValue) {
+        if (uiValue == null) return RetryMode.FIXED;
+        return uiValue.toLowerCase().contains("adapt") ? RetryMode.ADAPTIVE : RetryMode.FIXED;
+    }
+
+    /**
+     * Registra no log um travamento confirmado pelo watchdog
+     * @param carIds carros do ciclo
+     * @param cells células ocupadas por eles
+     * @param victimId carro retirado (0 = nenhum)
+     */
+    private static void reportGridlock(long[] carIds, int[] cells, long victimId) {
+        int cols = gridRef.cols;
+        StringBuilder sb = new StringBuilder("Travamento: ").append(carIds.length).append(" carros em ciclo");
+        for (int i = 0; i < carIds.length; i++) {
+            sb.append(i == 0 ? " [" : ", ").append('#').append(carIds[i])
+                    .append('@').append(cells[i] / cols).append(',').append(cells[i] % cols);
+        }
+        sb.append(']').append(victimId != 0 ? " — retirado #" + victimId : " — não resolvido");
+        System.err.println(sb);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,63 @@
+package app.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Política que se ajusta à ocupação de cada cruzamento.
+ *
+ * - Prazo: 1/{@value #OCCUPANCY_FRACTION} do tempo médio (EWMA) que um caminho fica reservado naquele
+ *   cruzamento, limitado a [passo/4, {@value #MAX_TIMEOUT_MS} ms]. Enquanto espera na fila o carro
+ *   segura a célula de entrada (e, no {@code acquireAll}, as internas já concedidas): se o caminho não
+ *   abriu numa fração de travessia, vale mais soltar a vez e sortear outra saída do que prender a via.
+ *   Sem amostras ainda, vale {@link FixedRetryPolicy#DEFAULT_TIMEOUT_MS}.
+ * - Backoff: exponencial com jitter completo, sorteado em [1, min(4 passos, passo/4 · 2^(falhas-1))].
+ *   Carros que falharam juntos voltam em instantes diferentes (sem rajadas sincronizadas), e a
+ *   primeira nova tentativa sai bem antes do passo inteiro da política fixa.
+ * - Replanejamento: depois de {@value #REPLAN_LIMIT} falhas seguidas o carro insiste no último caminho
+ *   sorteado, em vez de trocar de saída (e de rota) indefinidamente.
+ */
+public final class AdaptiveRetryPolicy implements RetryPolicy {
+
+    static final int OCCUPANCY_FRACTION = 8;
+    static final long MAX_TIMEOUT_MS = FixedRetryPolicy.DEFAULT_TIMEOUT_MS;
+    static final int REPLAN_LIMIT = 8;
+    /** Peso de cada amostra nova na média: 1/2^{@value #EWMA_SHIFT}. */
+    private static final int EWMA_SHIFT = 3;
+    /** Média móvel; 0 = sem amostras (a primeira amostra vira a média). */
+    private static final LongBinaryOperator EWMA = (avg, sample) -> avg == 0 ? sample : avg + ((sample - avg) >> EWMA_SHIFT);
+
+    /** Ocupação média (ns) por cruzamento. */
+    private final AtomicLongArray occupancyNanos;
+
+    public AdaptiveRetryPolicy(int crossings) {
+        this.occupancyNanos = new AtomicLongArray(crossings);
+    }
+
+    @Override
+    public long timeoutMs(int crossing, int stepMs) {
+        long avg = occupancyNanos.get(crossing);
+        if (avg == 0) return FixedRetryPolicy.DEFAULT_TIMEOUT_MS;
+        long ms = TimeUnit.NANOSECONDS.toMillis(avg / OCCUPANCY_FRACTION);
+        return Math.max(Math.max(1, stepMs / 4), Math.min(MAX_TIMEOUT_MS, ms));
+    }
+
+    @Override
+    public long backoffMs(int failures, int stepMs) {
+        long base = Math.max(1, stepMs / 4);
+        long ceiling = Math.min(4L * Math.max(1, stepMs), base << Math.min(failures - 1, 10));
+        return 1 + ThreadLocalRandom.current().nextLong(ceiling);
+    }
+
+    @Override
+    public int replanLimit() {
+        return REPLAN_LIMIT;
+    }
+
+    @Override
+    public void onCrossed(int crossing, long nanos) {
+        occupancyNanos.accumulateAndGet(crossing, Math.max(1, nanos), EWMA);
+    }
+}
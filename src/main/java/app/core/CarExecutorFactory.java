@@ -0,0 +1,31 @@
+package app.core;
+
+import app.model.Car;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Cria o {@link Executor} responsável por rodar os carros, de acordo com o {@link ExecutionMode}.
+ *
+ * Qualquer outro {@link Executor} (ex.: um pool de tamanho fixo) também pode ser passado
+ * diretamente ao {@link InserterThread}.
+ */
+public final class CarExecutorFactory {
+
+    private CarExecutorFactory() {}
+
+    public static Executor create(ExecutionMode mode) {
+        return switch (mode) {
+            case PLATFORM -> task -> start(Thread.ofPlatform().daemon(true), task);
+            case VIRTUAL  -> task -> start(Thread.ofVirtual(), task);
+            case TICK     -> throw new IllegalArgumentException("O modo TICK não executa carros em threads: use o TickEngine");
+            case REGIONS  -> throw new IllegalArgumentException("O modo REGIONS não executa carros em threads: use o RegionTickEngine");
+        };
+    }
+
+    /** Uma thread nova por carro, com o mesmo nome usado quando o carro era uma thread. */
+    private static void start(Thread.Builder builder, Runnable task) {
+        String name = (task instanceof Car car) ? "RelampagoMarquinhos-" + car.getId() : "Car";
+        builder.name(name).start(task);
+    }
+}
@@ -0,0 +1,36 @@
+package app.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Espera entre tentativas das grades por CAS ({@link CellLockGridCas}, {@link CellLockGridCrossMask}).
+ *
+ * Spin-then-park: as primeiras tentativas só giram com {@link Thread#onSpinWait()} (a célula costuma
+ * ser liberada logo); depois a thread é estacionada em backoff exponencial de 10µs a 1ms.
+ * Sem estado: a tentativa corrente é passada por quem chama (nenhuma alocação por espera).
+ */
+final class CasBackoff {
+    private CasBackoff() {}
+
+    /** Tentativas em spin antes de começar a estacionar a thread. */
+    static final int SPIN_LIMIT = 64;
+    /** Backoff do park: começa em 10µs e dobra até 1ms. */
+    static final long MIN_PARK_NANOS = 10_000L;
+    static final long MAX_PARK_NANOS = 1_000_000L;
+
+    /**
+     * Espera antes da próxima tentativa.
+     * @param blocker        objeto informado ao {@link LockSupport} (diagnóstico)
+     * @param attempt        tentativas que já falharam (0, 1, 2...)
+     * @param remainingNanos tempo até o deadline ({@code Long.MAX_VALUE} = sem prazo); deve ser > 0
+     */
+    static void pause(Object blocker, int attempt, long remainingNanos) {
+        if (attempt < SPIN_LIMIT) {
+            Thread.onSpinWait();
+            return;
+        }
+        int doublings = Math.min(attempt - SPIN_LIMIT, 7); // 10µs << 7 já passa de 1ms
+        long park = Math.min(MIN_PARK_NANOS << doublings, MAX_PARK_NANOS);
+        LockSupport.parkNanos(blocker, Math.min(park, remainingNanos));
+    }
+}
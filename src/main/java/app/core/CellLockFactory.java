@@ -1,13 +1,46 @@
 package app.core;
 
+import app.model.Grid;
+import utils.RoadGraph;
+
 public final class CellLockFactory {
 
     private CellLockFactory() {}
 
+    /**
+     * Grade sem conhecer a malha: no {@link LockMode#CROSS_MASK} não há blocos 2x2 (uma palavra por célula).
+     * Prefira {@link #create(LockMode, Grid)} quando a malha estiver disponível.
+     */
     public static CellLockGrid create(LockMode mode, int rows, int cols) {
         return switch (mode) {
             case SEMAPHORE -> new CellLockGridSemaphore(rows, cols);
             case MONITOR   -> new CellLockGridMonitor(rows, cols);
+            case MONITOR_LOCK -> new CellLockGridCondition(rows, cols);
+            case MONITOR_FIFO -> new CellLockGridFifoMonitor(rows, cols);
+            case CAS       -> new CellLockGridCas(rows, cols);
+            case CROSS_MASK -> new CellLockGridCrossMask(rows, cols, new int[0]);
         };
     }
-}
\ No newline at end of file
+
+    /** Grade para a malha; no {@link LockMode#CROSS_MASK}, os cruzamentos 2x2 vêm do {@link RoadGraph}. */
+    public static CellLockGrid create(LockMode mode, Grid grid) {
+        if (mode != LockMode.CROSS_MASK) return create(mode, grid.rows, grid.cols);
+        return new CellLockGridCrossMask(grid.rows, grid.cols, crossBlocks(grid));
+    }
+
+    /**
+     * Igual a {@link #create(LockMode, Grid)}, registrando a disputa por célula em {@code metrics}
+     * (ver {@link InstrumentedCellLockGrid}).
+     */
+    public static CellLockGrid create(LockMode mode, Grid grid, CellLockMetrics metrics) {
+        return new InstrumentedCellLockGrid(create(mode, grid), metrics);
+    }
+
+    /** Ids ({@code r * cols + c}) do canto superior esquerdo de cada cruzamento 2x2. */
+    private static int[] crossBlocks(Grid grid) {
+        return RoadGraph.forGrid(grid).nodes().stream()
+                .filter(n -> n.size == 2)
+                .mapToInt(n -> grid.idOf(n.topRow, n.topCol))
+                .toArray();
+    }
+}
@@ -6,6 +6,12 @@ public interface CellLockGrid {
     void acquire(int r, int c) throws InterruptedException;
     void release(int r, int c);
 
+    /**
+     * Tenta adquirir a célula SEM esperar.
+     * @return true se estava livre e agora é de quem chamou; false se ocupada
+     */
+    boolean tryAcquire(int r, int c);
+
     /**
      * Tenta adquirir todos os locks das células em "cells".
      * Quem implementar deve ORDENAR por um id global estável para evitar deadlock.
@@ -14,4 +20,15 @@ public interface CellLockGrid {
     boolean acquireAll(List<int[]> cells, long timeoutMs) throws InterruptedException;
 
     void releaseAll(List<int[]> cells);
+
+    /**
+     * Variante sem alocação do {@link #acquireAll(List, long)} para caminhos pré-calculados
+     * (ex.: {@code CrossPlanTable}): adquire as células {@code ids[from .. from + len)}, com
+     * {@code id = r * cols + c}, que JÁ DEVEM ESTAR em ordem crescente (mesma ordem anti-deadlock).
+     * @return true se conseguiu todos no prazo; false caso contrário (com rollback feito).
+     */
+    boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException;
+
+    /** Libera as células {@code ids[from .. from + len)} (ver {@link #acquireAll(int[], int, int, long)}). */
+    void releaseAll(int[] ids, int from, int len);
 }
@@ -0,0 +1,167 @@
+package app.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implementação de grade de locks por CÉLULA sem objetos por célula, usando CAS.
+ *
+ * Estrutura:
+ * - Um único {@link AtomicIntegerArray} com uma "palavra de dono" por célula,
+ *   indexado por {@code r * cols + c}. {@code 0} = livre; qualquer outro valor = id da thread dona.
+ * - Nenhum {@code Semaphore}/monitor é alocado por célula: a grade inteira ocupa um array contíguo.
+ *
+ * Aquisição (spin-then-park):
+ * - Caminho rápido: um único {@code compareAndSet(0, dono)} — o caso comum (célula livre).
+ * - Caminho lento: gira alguns ciclos com {@link Thread#onSpinWait()} e depois estaciona a thread
+ *   com {@link LockSupport#parkNanos(long)} em backoff exponencial (sem fila de espera; ver {@link CasBackoff}).
+ */
+public class CellLockGridCas implements CellLockGrid {
+
+    private static final int FREE = 0;
+
+    /** Palavra de dono por célula (0 = livre). */
+    private final AtomicIntegerArray owners;
+    private final int rows, cols;
+
+    public CellLockGridCas(int rows, int cols) {
+        this.rows = rows; this.cols = cols;
+        this.owners = new AtomicIntegerArray(rows * cols);
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    /** Token de dono da thread atual (nunca 0). */
+    private static int ownerToken() {
+        int token = (int) Thread.currentThread().threadId();
+        return token == FREE ? -1 : token;
+    }
+
+    /** Id da thread dona da célula, ou 0 se estiver livre (apenas diagnóstico). */
+    public int ownerOf(int r, int c) {
+        return owners.get(idOf(r, c));
+    }
+
+    @Override
+    public void acquire(int r, int c) throws InterruptedException {
+        int id = idOf(r, c);
+        int token = ownerToken();
+        // Caminho rápido: célula livre
+        if (owners.compareAndSet(id, FREE, token)) return;
+        if (!acquireSlow(id, token, Long.MAX_VALUE)) {
+            throw new IllegalStateException("acquire sem prazo não deveria expirar");
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        return owners.compareAndSet(idOf(r, c), FREE, ownerToken());
+    }
+
+    @Override
+    public void release(int r, int c) {
+        // Over-release é inofensivo: a célula apenas continua livre
+        owners.setRelease(idOf(r, c), FREE);
+    }
+
+    /**
+     * Laço spin-then-park até conseguir a célula ou atingir o deadline.
+     * @param deadlineNanos deadline absoluto em {@link System#nanoTime()} ({@code Long.MAX_VALUE} = sem prazo)
+     * @return true se adquiriu; false se o prazo expirou
+     */
+    private boolean acquireSlow(int id, int token, long deadlineNanos) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            if (owners.get(id) == FREE && owners.compareAndSet(id, FREE, token)) return true;
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            long remaining = deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+            if (remaining <= 0) return false;
+            CasBackoff.pause(this, attempt, remaining);
+        }
+    }
+
+    /**
+     * Tenta adquirir TODOS os locks do conjunto dentro do timeout total.
+     * Estratégia anti-deadlock: ordenar sempre pelo idOf(int, int).
+     * Se falhar em qualquer célula, desfaz (rollback) o que já foi adquirido.
+     *
+     * @param cells lista de pares {r,c} a serem travados (será ORDENADA in-place)
+     * @param timeoutMs tempo total máximo (ms) para obter o conjunto
+     * @return true se obteve todas, false se falhou (com rollback feito)
+     */
+    @Override
+    public boolean acquireAll(List<int[]> cells, long timeoutMs) throws InterruptedException {
+        // Ordena por id global para evitar deadlock entre carros pegando conjuntos diferentes
+        cells.sort(Comparator.comparingInt(p -> idOf(p[0], p[1])));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+        int token = ownerToken();
+        List<int[]> got = new ArrayList<>();
+
+        try {
+            for (int[] p : cells) {
+                int id = idOf(p[0], p[1]);
+                if (!owners.compareAndSet(id, FREE, token) && !acquireSlow(id, token, deadline)) {
+                    // Falhou: desfaz o que já pegou (em ordem reversa) e aborta
+                    releaseAll(got);
+                    return false;
+                }
+                got.add(p);
+            }
+        } catch (InterruptedException e) {
+            // Interrompido no meio: também não pode deixar células presas
+            releaseAll(got);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Mesmo contrato do {@link #acquireAll(List, long)}, mas com ids já ordenados (sem alocar).
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+        int token = ownerToken();
+
+        int i = from;
+        try {
+            for (; i < from + len; i++) {
+                int id = ids[i];
+                if (!owners.compareAndSet(id, FREE, token) && !acquireSlow(id, token, deadline)) {
+                    // Falhou: desfaz o que já pegou (em ordem reversa) e aborta
+                    releaseAll(ids, from, i - from);
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            releaseAll(ids, from, i - from);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        for (int i = from + len - 1; i >= from; i--) {
+            owners.setRelease(ids[i], FREE);
+        }
+    }
+
+    /**
+     * Libera todos os locks do conjunto em ordem reversa da aquisição.
+     */
+    @Override
+    public void releaseAll(List<int[]> cells) {
+        for (int i = cells.size() - 1; i >= 0; i--) {
+            int[] p = cells.get(i);
+            release(p[0], p[1]);
+        }
+    }
+
+
+}
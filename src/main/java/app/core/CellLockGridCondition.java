@@ -0,0 +1,182 @@
+package app.core;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementação de grade de locks por CÉLULA usando monitor explícito ({@link ReentrantLock} + {@link Condition}).
+ *
+ * Mesma semântica do {@link CellLockGridMonitor}, mas sem {@code synchronized}/{@code wait}:
+ * uma thread virtual bloqueada aqui é desmontada do carrier (não "prende" a thread de plataforma),
+ * por isso este é o modo monitor indicado para {@link ExecutionMode#VIRTUAL}.
+ */
+public class CellLockGridCondition implements CellLockGrid {
+
+    /**
+     * Monitor de uma célula (um por posição do grid).
+     * - {@code lock} protege {@code occupied}; {@code free} é a condição "célula ficou livre".
+     * - As esperas ficam em laço (padrão monitor), tolerando despertares espúrios.
+     */
+    private static final class Cell {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition free = lock.newCondition();
+        private boolean occupied = false;
+
+        /**
+         * Tenta adquirir antes do deadlineNanos ({@link System#nanoTime()}).
+         * Retorna true se conseguiu, false por timeout.
+         */
+        boolean tryAcquireUntil(long deadlineNanos) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                long remaining;
+                while (occupied && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                    free.awaitNanos(remaining);
+                }
+                if (!occupied) {
+                    occupied = true;
+                    return true;
+                }
+                return false; // timeout
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Adquire só se estiver livre agora (sem esperar). */
+        boolean tryAcquire() {
+            lock.lock();
+            try {
+                if (occupied) return false;
+                occupied = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Adquire bloqueando até ficar livre (sem timeout). */
+        void acquire() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (occupied) free.await();
+                occupied = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Libera a célula e acorda UM esperante (todos esperam pela mesma condição,
+         * então qualquer um deles pode prosseguir).
+         * Faz uma proteção best-effort contra over-release (ignora se já está livre).
+         */
+        void release() {
+            lock.lock();
+            try {
+                if (!occupied) {
+                    // proteção best-effort contra over-release
+                    return;
+                }
+                occupied = false;
+                free.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Matriz de monitores (1 por célula). */
+    private final Cell[][] cells;
+    private final int rows, cols;
+
+    public CellLockGridCondition(int rows, int cols) {
+        this.rows = rows; this.cols = cols;
+        this.cells = new Cell[rows][cols];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+                cells[r][c] = new Cell();
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    @Override
+    public void acquire(int r, int c) throws InterruptedException {
+        cells[r][c].acquire();
+    }
+
+    @Override
+    public void release(int r, int c) {
+        cells[r][c].release();
+    }
+
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        return cells[r][c].tryAcquire();
+    }
+
+    /**
+     * Tenta adquirir TODOS os locks do conjunto dentro do timeout total.
+     * Estratégia anti-deadlock: ordenar sempre pelo idOf(int, int).
+     * Se falhar em qualquer célula, desfaz (rollback) o que já foi adquirido.
+     *
+     * @param list lista de pares {r,c} a serem travados (será ORDENADA in-place)
+     * @param timeoutMs tempo total máximo (ms) para obter o conjunto
+     * @return true se obteve todas, false se falhou (com rollback feito)
+     */
+    @Override
+    public boolean acquireAll(List<int[]> list, long timeoutMs) throws InterruptedException {
+        // Ordena por id global fixo para evitar deadlock
+        list.sort(Comparator.comparingInt(p -> idOf(p[0], p[1])));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<int[]> got = new ArrayList<>();
+
+        for (int[] p : list) {
+            Cell cell = cells[p[0]][p[1]];
+            if (!cell.tryAcquireUntil(deadline)) {
+                // rollback
+                releaseAll(got);
+                return false;
+            }
+            got.add(p);
+        }
+        return true;
+    }
+
+    /**
+     * Mesmo contrato do {@link #acquireAll(List, long)}, mas com ids já ordenados (sem alocar).
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        for (int i = from; i < from + len; i++) {
+            if (!cells[ids[i] / cols][ids[i] % cols].tryAcquireUntil(deadline)) {
+                // rollback
+                releaseAll(ids, from, i - from);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        for (int i = from + len - 1; i >= from; i--) {
+            cells[ids[i] / cols][ids[i] % cols].release();
+        }
+    }
+
+    @Override
+    public void releaseAll(List<int[]> list) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            int[] p = list.get(i);
+            cells[p[0]][p[1]].release();
+        }
+    }
+
+
+}
@@ -0,0 +1,231 @@
+package app.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Implementação de grade de locks por CÉLULA em que cada cruzamento 2x2 é UMA palavra atômica.
+ *
+ * Estrutura:
+ * - Cada bloco 2x2 tem uma máscara de ocupação ({@code int}) com um bit por célula: as 4 internas
+ *   e as até 8 vizinhas (2 por lado), que são as células de saída dos caminhos de travessia.
+ * - As demais células têm uma palavra própria (bit 0). Uma vizinha de dois blocos fica com o primeiro.
+ * - {@code lockOf[id] = palavra << 4 | bit}, com {@code id = r * cols + c}.
+ *
+ * Aquisição:
+ * - Um caminho de travessia (internas + 1ª fora) cabe, em geral, numa palavra só: é reservado ou
+ *   liberado inteiro com UM CAS — sem ordenar, sem lista de "já peguei" e sem rollback parcial.
+ *   Como a reserva é tudo-ou-nada, não há posse parcial esperando por outra: nada de deadlock.
+ * - Se o caminho toca mais de uma palavra (saída pertencente a outro bloco), as palavras são
+ *   pegas em ordem crescente, cada uma tudo-ou-nada (mesma regra anti-deadlock das outras grades).
+ * - CAS que falha porque OUTRO bit da palavra mudou é repetido na hora; só espera (spin-then-park,
+ *   {@link CasBackoff}) quando algum bit pedido está ocupado.
+ *
+ * Os blocos vêm da malha (ver {@link CellLockFactory#create(LockMode, app.model.Grid)}); sem blocos, a
+ * grade vira uma palavra por célula (equivalente ao {@link CellLockGridCas}, sem dono).
+ */
+public class CellLockGridCrossMask implements CellLockGrid {
+
+    private static final int BIT_BITS = 4;
+    private static final IntBinaryOperator AND = (a, b) -> a & b;
+
+    /** Máscaras de ocupação (bit 1 = célula ocupada). */
+    private final AtomicIntegerArray words;
+    /** Palavra e bit de cada célula: {@code palavra << 4 | bit}. */
+    private final int[] lockOf;
+    private final int rows, cols;
+
+    /**
+     * @param blocks ids ({@code r * cols + c}) do canto superior esquerdo de cada cruzamento 2x2
+     */
+    public CellLockGridCrossMask(int rows, int cols, int[] blocks) {
+        this.rows = rows; this.cols = cols;
+        this.lockOf = new int[rows * cols];
+        Arrays.fill(lockOf, -1);
+
+        // 1) internas de cada bloco (bits 0..3)
+        int word = 0;
+        for (int tl : blocks) {
+            int r = tl / cols, c = tl % cols;
+            assign(r, c, word, 0);
+            assign(r, c + 1, word, 1);
+            assign(r + 1, c, word, 2);
+            assign(r + 1, c + 1, word, 3);
+            word++;
+        }
+        // 2) vizinhas (bits 4..11), só se ainda não pertencem a outro bloco
+        word = 0;
+        for (int tl : blocks) {
+            int r = tl / cols, c = tl % cols;
+            int bit = 4;
+            int[][] around = {{r - 1, c}, {r - 1, c + 1}, {r + 2, c}, {r + 2, c + 1},
+                              {r, c - 1}, {r + 1, c - 1}, {r, c + 2}, {r + 1, c + 2}};
+            for (int[] p : around) {
+                if (assign(p[0], p[1], word, bit)) bit++;
+            }
+            word++;
+        }
+        // 3) o resto: uma palavra por célula
+        for (int id = 0; id < lockOf.length; id++) {
+            if (lockOf[id] < 0) lockOf[id] = word++ << BIT_BITS;
+        }
+        this.words = new AtomicIntegerArray(word);
+    }
+
+    private boolean assign(int r, int c, int word, int bit) {
+        if (r < 0 || c < 0 || r >= rows || c >= cols) return false;
+        int id = r * cols + c;
+        if (lockOf[id] >= 0) return false;
+        lockOf[id] = word << BIT_BITS | bit;
+        return true;
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    private int wordOf(int id) { return lockOf[id] >>> BIT_BITS; }
+
+    private int bitOf(int id) { return 1 << (lockOf[id] & ((1 << BIT_BITS) - 1)); }
+
+    /** Uma tentativa (repetida só se o CAS falhou por outro bit): true se pegou todos os bits de {@code mask}. */
+    private boolean tryClaim(int word, int mask) {
+        int v;
+        while (((v = words.get(word)) & mask) == 0) {
+            if (words.compareAndSet(word, v, v | mask)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Pega todos os bits de {@code mask} na palavra, esperando até o deadline.
+     * @param deadlineNanos deadline absoluto em {@link System#nanoTime()} ({@code Long.MAX_VALUE} = sem prazo)
+     */
+    private boolean claim(int word, int mask, long deadlineNanos) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            if (tryClaim(word, mask)) return true;
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            long remaining = deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+            if (remaining <= 0) return false;
+            CasBackoff.pause(this, attempt, remaining);
+        }
+    }
+
+    private void unclaim(int word, int mask) {
+        // Over-release é inofensivo: os bits apenas continuam livres
+        words.accumulateAndGet(word, ~mask, AND);
+    }
+
+    @Override
+    public void acquire(int r, int c) throws InterruptedException {
+        int id = idOf(r, c);
+        claim(wordOf(id), bitOf(id), Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        int id = idOf(r, c);
+        return tryClaim(wordOf(id), bitOf(id));
+    }
+
+    @Override
+    public void release(int r, int c) {
+        int id = idOf(r, c);
+        unclaim(wordOf(id), bitOf(id));
+    }
+
+    /**
+     * Reserva as células {@code ids[from .. from + len)} (não precisam estar ordenadas aqui).
+     * Caminho comum: até duas palavras, sem alocação.
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+
+        int wordA = -1, maskA = 0, wordB = -1, maskB = 0;
+        for (int i = from; i < from + len; i++) {
+            int w = wordOf(ids[i]), bit = bitOf(ids[i]);
+            if (wordA < 0 || w == wordA) { wordA = w; maskA |= bit; }
+            else if (wordB < 0 || w == wordB) { wordB = w; maskB |= bit; }
+            else return acquireWords(ids, from, len, deadline); // 3+ palavras: raro
+        }
+        if (wordB < 0) {
+            return claim(wordA, maskA, deadline);
+        }
+        // Duas palavras: em ordem crescente
+        if (wordB < wordA) {
+            int w = wordA; wordA = wordB; wordB = w;
+            int m = maskA; maskA = maskB; maskB = m;
+        }
+        if (!claim(wordA, maskA, deadline)) return false;
+        boolean ok = false;
+        try {
+            ok = claim(wordB, maskB, deadline);
+        } finally {
+            if (!ok) unclaim(wordA, maskA);
+        }
+        return ok;
+    }
+
+    /** Caso geral: agrupa por palavra e pega cada uma (tudo-ou-nada) em ordem crescente. */
+    private boolean acquireWords(int[] ids, int from, int len, long deadline) throws InterruptedException {
+        long[] parts = groupByWord(ids, from, len);
+        int got = 0;
+        try {
+            while (got < parts.length && claim((int) (parts[got] >>> 32), (int) parts[got], deadline)) got++;
+        } finally {
+            if (got < parts.length) {
+                for (int i = got - 1; i >= 0; i--) unclaim((int) (parts[i] >>> 32), (int) parts[i]);
+            }
+        }
+        return got == parts.length;
+    }
+
+    /** {@code palavra << 32 | máscara}, uma entrada por palavra, em ordem crescente de palavra. */
+    private long[] groupByWord(int[] ids, int from, int len) {
+        long[] parts = new long[len];
+        for (int i = 0; i < len; i++) {
+            parts[i] = (long) wordOf(ids[from + i]) << 32 | bitOf(ids[from + i]);
+        }
+        Arrays.sort(parts);
+        int n = 0;
+        for (int i = 0; i < len; i++) {
+            if (n > 0 && (parts[n - 1] >>> 32) == (parts[i] >>> 32)) parts[n - 1] |= parts[i] & 0xFFFFFFFFL;
+            else parts[n++] = parts[i];
+        }
+        return Arrays.copyOf(parts, n);
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        int wordA = -1, maskA = 0;
+        for (int i = from; i < from + len; i++) {
+            int w = wordOf(ids[i]), bit = bitOf(ids[i]);
+            if (w != wordA) {
+                if (wordA >= 0) unclaim(wordA, maskA);
+                wordA = w;
+                maskA = 0;
+            }
+            maskA |= bit;
+        }
+        if (wordA >= 0) unclaim(wordA, maskA);
+    }
+
+    @Override
+    public boolean acquireAll(List<int[]> cells, long timeoutMs) throws InterruptedException {
+        return acquireAll(idsOf(cells), 0, cells.size(), timeoutMs);
+    }
+
+    @Override
+    public void releaseAll(List<int[]> cells) {
+        releaseAll(idsOf(cells), 0, cells.size());
+    }
+
+    private int[] idsOf(List<int[]> cells) {
+        int[] ids = new int[cells.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = idOf(cells.get(i)[0], cells.get(i)[1]);
+        return ids;
+    }
+}
@@ -0,0 +1,209 @@
+package app.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementação de grade de locks por CÉLULA usando Monitor com fila FIFO explícita e
+ * passagem direta ("handoff") — variante do {@link CellLockGridMonitor} sem {@code notifyAll()}.
+ *
+ * Problema do monitor simples: num cruzamento movimentado, cada {@code release()} acorda TODOS os
+ * esperantes; todos reavaliam {@code occupied} e só um consegue (o resto volta a dormir).
+ *
+ * Aqui:
+ * - Cada célula mantém a fila dos esperantes em ordem de chegada; cada esperante dorme no monitor
+ *   do seu próprio nó ({@link Waiter}), não no da célula.
+ * - O {@code release()} entrega a célula direto ao primeiro da fila (ela nem chega a ficar livre) e
+ *   acorda exatamente essa thread com {@code notify()} no nó dela.
+ * - Ordem justa: ninguém "fura" a fila (nem o {@code tryAcquire}), pois a célula só fica livre com a
+ *   fila vazia.
+ * - Prazos em {@link System#nanoTime()} (deadline absoluto), imunes a ajustes do relógio.
+ */
+public class CellLockGridFifoMonitor implements CellLockGrid {
+
+    /** Sem prazo. */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /** Nó da fila de uma célula: uma thread esperando. */
+    private static final class Waiter {
+        /** Posse entregue por quem liberou (escrito sob o monitor da célula). */
+        volatile boolean granted;
+    }
+
+    /**
+     * Monitor de uma célula. {@code synchronized} protege {@code occupied} e a fila;
+     * a espera em si acontece fora dele, no nó de cada thread.
+     */
+    private static final class Cell {
+        private boolean occupied;
+        /** Criada na primeira disputa (a maioria das células nunca tem fila). */
+        private ArrayDeque<Waiter> queue;
+
+        /**
+         * Adquire até o deadline ({@link #NO_DEADLINE} = sem prazo).
+         * @return true se conseguiu; false por timeout
+         */
+        boolean acquireUntil(long deadlineNanos) throws InterruptedException {
+            Waiter w;
+            synchronized (this) {
+                if (!occupied) {
+                    occupied = true;
+                    return true;
+                }
+                if (deadlineNanos != NO_DEADLINE && deadlineNanos - System.nanoTime() <= 0) return false;
+                if (queue == null) queue = new ArrayDeque<>();
+                w = new Waiter();
+                queue.addLast(w);
+            }
+
+            try {
+                synchronized (w) {
+                    // granted é lido sob o monitor do nó: o notify de quem entrega só acontece
+                    // depois que este wait liberou o monitor, então o sinal não se perde
+                    while (!w.granted) {
+                        if (deadlineNanos == NO_DEADLINE) {
+                            w.wait();
+                        } else {
+                            long remaining = deadlineNanos - System.nanoTime();
+                            if (remaining <= 0) break;
+                            TimeUnit.NANOSECONDS.timedWait(w, remaining);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Desiste da fila; se a célula já tinha sido entregue, repassa ao próximo
+                if (!leave(w)) release();
+                throw e;
+            }
+            // Timeout: sai da fila, a menos que a entrega tenha chegado no último instante
+            return w.granted || !leave(w);
+        }
+
+        /**
+         * Tira o nó da fila.
+         * @return true se saiu (não tinha recebido a célula); false se a célula já foi entregue a ele
+         */
+        private synchronized boolean leave(Waiter w) {
+            if (w.granted) return false;
+            queue.remove(w);
+            return true;
+        }
+
+        /** Adquire só se estiver livre agora (sem esperar). */
+        synchronized boolean tryAcquire() {
+            if (occupied) return false;
+            occupied = true;
+            return true;
+        }
+
+        /**
+         * Libera a célula: passa direto ao primeiro da fila ou, sem fila, deixa livre.
+         * Proteção best-effort contra over-release (ignora se já está livre).
+         */
+        void release() {
+            Waiter next;
+            synchronized (this) {
+                if (!occupied) return;
+                next = queue == null ? null : queue.pollFirst();
+                if (next == null) {
+                    occupied = false;
+                    return;
+                }
+                next.granted = true; // a célula continua ocupada, agora pelo próximo
+            }
+            synchronized (next) {
+                next.notify(); // só a thread dona do nó dorme nele
+            }
+        }
+    }
+
+    /** Um monitor por célula, indexado por {@code r * cols + c}. */
+    private final Cell[] cells;
+    private final int rows, cols;
+
+    public CellLockGridFifoMonitor(int rows, int cols) {
+        this.rows = rows; this.cols = cols;
+        this.cells = new Cell[rows * cols];
+        for (int i = 0; i < cells.length; i++) cells[i] = new Cell();
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    private static long deadlineAfter(long timeoutMs) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+    }
+
+    @Override
+    public void acquire(int r, int c) throws InterruptedException {
+        cells[idOf(r, c)].acquireUntil(NO_DEADLINE);
+    }
+
+    @Override
+    public void release(int r, int c) {
+        cells[idOf(r, c)].release();
+    }
+
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        return cells[idOf(r, c)].tryAcquire();
+    }
+
+    /**
+     * Tenta adquirir TODOS os locks do conjunto dentro do timeout total.
+     * Estratégia anti-deadlock: ordenar sempre pelo idOf(int, int).
+     * Se falhar em qualquer célula, desfaz (rollback) o que já foi adquirido.
+     *
+     * @param list lista de pares {r,c} a serem travados (será ORDENADA in-place)
+     * @param timeoutMs tempo total máximo (ms) para obter o conjunto
+     * @return true se obteve todas, false se falhou (com rollback feito)
+     */
+    @Override
+    public boolean acquireAll(List<int[]> list, long timeoutMs) throws InterruptedException {
+        list.sort(Comparator.comparingInt(p -> idOf(p[0], p[1])));
+
+        long deadline = deadlineAfter(timeoutMs);
+        List<int[]> got = new ArrayList<>();
+        try {
+            for (int[] p : list) {
+                if (!cells[idOf(p[0], p[1])].acquireUntil(deadline)) break;
+                got.add(p);
+            }
+        } finally {
+            if (got.size() < list.size()) releaseAll(got);
+        }
+        return got.size() == list.size();
+    }
+
+    /**
+     * Mesmo contrato do {@link #acquireAll(List, long)}, mas com ids já ordenados (sem alocar).
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = deadlineAfter(timeoutMs);
+        int got = 0;
+        try {
+            while (got < len && cells[ids[from + got]].acquireUntil(deadline)) got++;
+        } finally {
+            if (got < len) releaseAll(ids, from, got);
+        }
+        return got == len;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        for (int i = from + len - 1; i >= from; i--) {
+            cells[ids[i]].release();
+        }
+    }
+
+    @Override
+    public void releaseAll(List<int[]> list) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            int[] p = list.get(i);
+            cells[idOf(p[0], p[1])].release();
+        }
+    }
+}
@@ -37,6 +37,13 @@ public class CellLockGridMonitor implements CellLockGrid {
             return false; // timeout
         }
 
+        /** Adquire só se estiver livre agora (sem esperar). */
+        synchronized boolean tryAcquire() {
+            if (occupied) return false;
+            occupied = true;
+            return true;
+        }
+
         /** Adquire bloqueando até ficar livre (sem timeout). */
         synchronized void acquire() throws InterruptedException {
             while (occupied) wait();
@@ -81,6 +88,11 @@ public class CellLockGridMonitor implements CellLockGrid {
         cells[r][c].release();
     }
 
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        return cells[r][c].tryAcquire();
+    }
+
     /**
      * Tenta adquirir TODOS os locks do conjunto dentro do timeout total.
      * Estratégia anti-deadlock: ordenar sempre pelo idOf(int, int).
@@ -117,6 +129,30 @@ public class CellLockGridMonitor implements CellLockGrid {
         return true;
     }
 
+    /**
+     * Mesmo contrato do {@link #acquireAll(List, long)}, mas com ids já ordenados (sem alocar).
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        for (int i = from; i < from + len; i++) {
+            if (!cells[ids[i] / cols][ids[i] % cols].tryAcquireUntil(deadline)) {
+                // rollback
+                releaseAll(ids, from, i - from);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        for (int i = from + len - 1; i >= from; i--) {
+            cells[ids[i] / cols][ids[i] % cols].release();
+        }
+    }
+
     @Override
     public void releaseAll(List<int[]> list) {
         for (int i = list.size() - 1; i >= 0; i--) {
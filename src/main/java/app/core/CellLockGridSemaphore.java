@@ -31,6 +31,11 @@ public class CellLockGridSemaphore implements CellLockGrid {
         locks[r][c].release();
     }
 
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        return locks[r][c].tryAcquire();
+    }
+
     private int idOf(int r, int c) { return r * cols + c; }
 
     /**
@@ -65,6 +70,31 @@ public class CellLockGridSemaphore implements CellLockGrid {
         return true;
     }
 
+    /**
+     * Mesmo contrato do {@link #acquireAll(List, long)}, mas com ids já ordenados (sem alocar).
+     */
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        for (int i = from; i < from + len; i++) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !locks[ids[i] / cols][ids[i] % cols].tryAcquire(Math.max(1, remaining), TimeUnit.MILLISECONDS)) {
+                // Falhou: desfaz o que já pegou (em ordem reversa) e aborta
+                releaseAll(ids, from, i - from);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        for (int i = from + len - 1; i >= from; i--) {
+            locks[ids[i] / cols][ids[i] % cols].release();
+        }
+    }
+
     /**
      * Libera todos os locks do conjunto em ordem reversa da aquisição.
      */
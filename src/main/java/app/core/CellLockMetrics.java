@@ -0,0 +1,163 @@
+package app.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de disputa por CÉLULA, alimentadas pelo {@link InstrumentedCellLockGrid}.
+ *
+ * Por célula: aquisições, aquisições com disputa (precisou esperar), espera total e máxima e
+ * timeouts de {@code acquireAll}. Serve para achar os cruzamentos gargalo de uma malha.
+ *
+ * Custo:
+ * - Contadores são {@link LongAdder}/{@link LongAccumulator} (striped): carros em threads diferentes
+ *   registrando na mesma célula não disputam uma única palavra de memória.
+ * - Os contadores de uma célula só são alocados no primeiro registro: células nunca usadas
+ *   (a maior parte de uma malha grande) custam uma referência nula.
+ *
+ * Independe da implementação de lock: o mesmo objeto pode seguir acumulando quando a grade de
+ * locks é recriada (ex.: troca de {@link LockMode} na UI).
+ */
+public final class CellLockMetrics {
+
+    /** Contadores de uma célula. */
+    private static final class Cell {
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+        final LongAdder timeouts = new LongAdder();
+    }
+
+    /** Recebe cada célula com registro em {@link #forEachCell}. */
+    @FunctionalInterface
+    public interface CellVisitor {
+        void visit(int r, int c, long acquisitions, long contended, long waitNanos, long maxWaitNanos, long timeouts);
+    }
+
+    public final int rows, cols;
+    private final AtomicReferenceArray<Cell> cells;
+
+    public CellLockMetrics(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new AtomicReferenceArray<>(rows * cols);
+    }
+
+    private Cell cell(int id) {
+        Cell c = cells.getAcquire(id);
+        if (c == null) {
+            Cell fresh = new Cell();
+            c = cells.compareAndExchangeRelease(id, null, fresh);
+            if (c == null) c = fresh;
+        }
+        return c;
+    }
+
+    /**
+     * Registra uma aquisição da célula {@code id = r * cols + c}.
+     * @param waitNanos tempo até conseguir (entra sempre na espera total e máxima)
+     * @param contended true se a célula estava ocupada e foi preciso esperar
+     */
+    void acquired(int id, long waitNanos, boolean contended) {
+        Cell c = cell(id);
+        c.acquisitions.increment();
+        if (contended) c.contended.increment();
+        if (waitNanos > 0) {
+            c.waitNanos.add(waitNanos);
+            c.maxWaitNanos.accumulate(waitNanos);
+        }
+    }
+
+    /** Registra uma tentativa sem espera ({@code tryAcquire}) que encontrou a célula ocupada. */
+    void busy(int id) {
+        cell(id).contended.increment();
+    }
+
+    /** Registra um {@code acquireAll} que expirou depois de esperar {@code waitNanos} pela célula. */
+    void timedOut(int id, long waitNanos) {
+        Cell c = cell(id);
+        c.contended.increment();
+        c.waitNanos.add(waitNanos);
+        c.maxWaitNanos.accumulate(waitNanos);
+        c.timeouts.increment();
+    }
+
+    /** Espera total acumulada na célula (0 se nunca houve registro). */
+    public long waitNanos(int id) {
+        Cell c = cells.getAcquire(id);
+        return c == null ? 0L : c.waitNanos.sum();
+    }
+
+    /** Aquisições disputadas na célula (0 se nunca houve registro). */
+    public long contended(int id) {
+        Cell c = cells.getAcquire(id);
+        return c == null ? 0L : c.contended.sum();
+    }
+
+    /**
+     * Varre as células com algum registro, em ordem de id. Os valores são somas do momento
+     * (carros registrando em paralelo podem ou não entrar).
+     */
+    public void forEachCell(CellVisitor visitor) {
+        int n = cells.length();
+        for (int id = 0; id < n; id++) {
+            Cell c = cells.getAcquire(id);
+            if (c == null) continue;
+            visitor.visit(id / cols, id % cols, c.acquisitions.sum(), c.contended.sum(),
+                    c.waitNanos.sum(), c.maxWaitNanos.get(), c.timeouts.sum());
+        }
+    }
+
+    /** Zera tudo (as células voltam a não ter contadores). */
+    public void reset() {
+        for (int id = 0; id < cells.length(); id++) cells.setRelease(id, null);
+    }
+
+    /* ===================== EXPORTAÇÃO ===================== */
+
+    /** Grava em CSV ou, se o arquivo terminar em {@code .json}, em JSON. */
+    public void write(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writeCsv(out);
+            }
+        }
+    }
+
+    /** Uma linha por célula com registro; tempos em microssegundos. */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("linha,coluna,aquisicoes,disputadas,espera_total_us,espera_max_us,timeouts\n");
+        StringBuilder line = new StringBuilder();
+        forEachCell((r, c, acq, cont, wait, max, tmo) -> {
+            line.append(r).append(',').append(c).append(',').append(acq).append(',').append(cont).append(',')
+                    .append(wait / 1_000).append(',').append(max / 1_000).append(',').append(tmo).append('\n');
+        });
+        out.append(line);
+    }
+
+    /** Mesmo conteúdo do CSV: {@code {"linhas":..,"colunas":..,"celulas":[{...}, ...]}}. */
+    public void writeJson(Appendable out) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"linhas\":").append(rows).append(",\"colunas\":").append(cols).append(",\"celulas\":[");
+        int start = json.length();
+        forEachCell((r, c, acq, cont, wait, max, tmo) -> {
+            if (json.length() > start) json.append(',');
+            json.append("\n  {\"linha\":").append(r).append(",\"coluna\":").append(c)
+                    .append(",\"aquisicoes\":").append(acq).append(",\"disputadas\":").append(cont)
+                    .append(",\"espera_total_us\":").append(wait / 1_000).append(",\"espera_max_us\":").append(max / 1_000)
+                    .append(",\"timeouts\":").append(tmo).append('}');
+        });
+        json.append("\n]}\n");
+        out.append(json);
+    }
+}
@@ -0,0 +1,21 @@
+package app.core;
+
+/**
+ * Onde a lógica de cada carro é executada.
+ */
+public enum ExecutionMode {
+    /** Uma thread de plataforma (thread do SO) por carro — comportamento original. */
+    PLATFORM,
+    /** Uma thread virtual por carro: permite dezenas de milhares de carros simultâneos. */
+    VIRTUAL,
+    /**
+     * Sem thread por carro: o {@link TickEngine} avança todos os carros em ticks fixos
+     * com um pool pequeno de workers (ignora o {@link LockMode}).
+     */
+    TICK,
+    /**
+     * Como o TICK, mas com a malha dividida em regiões, uma thread por região
+     * ({@link RegionTickEngine}); só a passagem entre regiões é coordenada.
+     */
+    REGIONS
+}
@@ -0,0 +1,34 @@
+package app.core;
+
+/**
+ * Política original: prazo fixo, espera de um passo inteiro e novo sorteio de caminho a cada tentativa.
+ *
+ * Como todos os carros barrados num cruzamento cheio expiram e voltam juntos (mesmo prazo, mesmo
+ * passo), as novas tentativas tendem a chegar em rajadas; serve de referência para o {@link AdaptiveRetryPolicy}.
+ */
+public final class FixedRetryPolicy implements RetryPolicy {
+
+    /** Prazo usado desde a primeira versão dos carros. */
+    public static final long DEFAULT_TIMEOUT_MS = 200;
+
+    private final long timeoutMs;
+
+    public FixedRetryPolicy(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public long timeoutMs(int crossing, int stepMs) {
+        return timeoutMs;
+    }
+
+    @Override
+    public long backoffMs(int failures, int stepMs) {
+        return Math.max(1, stepMs);
+    }
+
+    @Override
+    public int replanLimit() {
+        return Integer.MAX_VALUE;
+    }
+}
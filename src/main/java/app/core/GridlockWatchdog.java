@@ -0,0 +1,240 @@
+package app.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Detecta (e opcionalmente desfaz) travamentos circulares entre carros.
+ *
+ * Um carro que bloqueia em {@code locks.acquire(próxima)} segura a célula atual enquanto espera. Num
+ * anel de vias, um carro esperando o da frente, que espera o da frente... fecha um ciclo do qual
+ * ninguém sai, e a vazão cai a zero sem erro nenhum.
+ *
+ * A cada período:
+ * - Monta o grafo de espera a partir do {@link SimulationState}: carro → dono da célula que ele espera
+ *   ({@link SimulationState#onWaiting}); o dono é o carro cuja posição é aquela célula.
+ * - Cada carro espera no máximo UMA célula, então o grafo tem grau de saída <= 1 e os ciclos saem de uma
+ *   única passada (O(carros), com arrays reaproveitados: nada alocado enquanto não há ciclo).
+ * - A varredura não é atômica: um ciclo só é confirmado se aparecer igual (mesmos carros nas mesmas
+ *   células) em duas varreduras seguidas — num travamento de verdade ninguém se mexe.
+ *
+ * Confirmado o ciclo, avisa o {@link Listener} e, com a resolução ligada, tira da simulação o carro mais
+ * novo do ciclo (maior id: é o que perde menos viagem). Ao encerrar ele solta a célula e o anel volta a andar.
+ * Um ciclo já tratado não é contado de novo enquanto continuar igual (só relatado, ou com a vítima ainda saindo).
+ *
+ * Esperas com prazo (reserva de cruzamento) não entram no grafo: expiram sozinhas.
+ */
+public class GridlockWatchdog extends Thread {
+
+    public static final long DEFAULT_PERIOD_MS = 1_000;
+
+    /** Avisado a cada travamento confirmado (na thread do watchdog). */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param carIds   carros do ciclo, na ordem de espera (cada um espera a célula do seguinte)
+         * @param cells    célula ocupada por cada um ({@code r * cols + c})
+         * @param victimId carro retirado, ou 0 se o travamento só foi relatado
+         */
+        void onGridlock(long[] carIds, int[] cells, long victimId);
+    }
+
+    private final SimulationState sim;
+    private final long periodMs;
+    /** Tira o carro da simulação; true se o carro foi encontrado. */
+    private final LongPredicate remover;
+    private final Listener listener;
+
+    private volatile boolean resolve;
+    private volatile boolean running = true;
+
+    private final AtomicLong detected = new AtomicLong();
+    private final AtomicLong resolved = new AtomicLong();
+
+    // Dados da varredura corrente (índice = slot, exceto ownerOfCell); crescem com os slots do estado
+    private long[] idOf;
+    private int[] cellOf;
+    private int[] waitOf;
+    /** Slot + 1 do carro em cada célula (0 = ninguém). */
+    private final int[] ownerOfCell;
+    /** Passeio em que o slot foi visitado (0 = ainda não). */
+    private int[] walkOf;
+    private int[] slots;
+    private int slotCount;
+    private final SimulationState.WaitVisitor collect = this::collect;
+
+    /** Carros em ciclo na varredura anterior (id → célula), aguardando confirmação. */
+    private Map<Long, Integer> suspects = Map.of();
+    private Map<Long, Integer> nextSuspects;
+    /** Carros de ciclos já contados (id → célula), para não contar o mesmo travamento a cada varredura. */
+    private Map<Long, Integer> reported = Map.of();
+    private Map<Long, Integer> nextReported;
+
+    /**
+     * @param remover  tira um carro (pelo id) da simulação; true se encontrou
+     * @param listener avisado a cada travamento confirmado (pode ser null)
+     * @param resolve  se true, retira um carro de cada ciclo confirmado; senão só relata
+     */
+    public GridlockWatchdog(SimulationState sim, long periodMs, LongPredicate remover, Listener listener, boolean resolve) {
+        this.sim = sim;
+        this.periodMs = Math.max(1, periodMs);
+        this.remover = remover;
+        this.listener = listener;
+        this.resolve = resolve;
+
+        this.ownerOfCell = new int[sim.getRows() * sim.getCols()];
+        int capacity = sim.slotCapacity();
+        this.idOf = new long[capacity];
+        this.cellOf = new int[capacity];
+        this.waitOf = new int[capacity];
+        this.walkOf = new int[capacity];
+        this.slots = new int[capacity];
+        setName("GridlockWatchdog");
+        setDaemon(true);
+    }
+
+    /** Liga/desliga a retirada automática de um carro por ciclo (vale a partir da próxima varredura). */
+    public void setResolve(boolean resolve) {
+        this.resolve = resolve;
+    }
+
+    /** Travamentos confirmados desde o início. */
+    public long detected() {
+        return detected.get();
+    }
+
+    /** Travamentos desfeitos com a retirada de um carro. */
+    public long resolved() {
+        return resolved.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                TimeUnit.MILLISECONDS.sleep(periodMs);
+                scan();
+            }
+        } catch (InterruptedException ignored) {
+            // encerrando
+        }
+    }
+
+    /** Uma varredura: monta o grafo de espera, acha os ciclos e trata os confirmados. */
+    void scan() {
+        ensureCapacity(sim.slotCapacity());
+        slotCount = 0;
+        sim.forEachCarWait(collect);
+
+        nextSuspects = null;
+        nextReported = null;
+        int walk = 0;
+        for (int i = 0; i < slotCount; i++) {
+            int s = slots[i];
+            if (walkOf[s] != 0) continue;
+            walk++;
+            int x = s;
+            while (x >= 0 && walkOf[x] == 0) {
+                walkOf[x] = walk;
+                x = next(x);
+            }
+            // voltou a um carro deste mesmo passeio: ciclo começando em x
+            if (x >= 0 && walkOf[x] == walk) onCycle(x);
+        }
+
+        // limpa só o que esta varredura usou
+        for (int i = 0; i < slotCount; i++) {
+            int s = slots[i];
+            walkOf[s] = 0;
+            ownerOfCell[cellOf[s]] = 0;
+        }
+        suspects = nextSuspects == null ? Map.of() : nextSuspects;
+        reported = nextReported == null ? Map.of() : nextReported;
+    }
+
+    private void collect(int slot, long id, int cell, int waitingCell) {
+        if (slot >= idOf.length) ensureCapacity(slot + 1); // o estado cresceu durante a varredura
+        idOf[slot] = id;
+        cellOf[slot] = cell;
+        waitOf[slot] = waitingCell;
+        ownerOfCell[cell] = slot + 1;
+        slots[slotCount++] = slot;
+    }
+
+    /** Acompanha o crescimento dos slots do {@link SimulationState} (fora de uma varredura, tudo zerado). */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= idOf.length) return;
+        int n = Math.max(capacity, idOf.length * 2);
+        idOf = Arrays.copyOf(idOf, n);
+        cellOf = Arrays.copyOf(cellOf, n);
+        waitOf = Arrays.copyOf(waitOf, n);
+        walkOf = Arrays.copyOf(walkOf, n);
+        slots = Arrays.copyOf(slots, n);
+    }
+
+    /** Slot do carro que o slot {@code s} espera, ou -1. */
+    private int next(int s) {
+        int w = waitOf[s];
+        if (w < 0) return -1;
+        int owner = ownerOfCell[w] - 1;
+        return owner == s ? -1 : owner;
+    }
+
+    private void onCycle(int start) {
+        int n = 1;
+        for (int x = next(start); x != start; x = next(x)) n++;
+        long[] ids = new long[n];
+        int[] cells = new int[n];
+        boolean confirmed = true, known = true;
+        int x = start;
+        for (int i = 0; i < n; i++, x = next(x)) {
+            ids[i] = idOf[x];
+            cells[i] = cellOf[x];
+            confirmed &= sameCell(suspects, ids[i], cells[i]);
+            known &= sameCell(reported, ids[i], cells[i]);
+        }
+
+        if (known) {
+            // já contado: só continua lembrando enquanto o ciclo existir
+            nextReported = remember(nextReported, ids, cells);
+            return;
+        }
+        if (!confirmed) {
+            // primeira vez que aparece: confirma na próxima varredura
+            nextSuspects = remember(nextSuspects, ids, cells);
+            return;
+        }
+        nextReported = remember(nextReported, ids, cells);
+
+        detected.incrementAndGet();
+        long victim = 0;
+        if (resolve) {
+            long youngest = Arrays.stream(ids).max().getAsLong();
+            if (remover.test(youngest)) {
+                victim = youngest;
+                resolved.incrementAndGet();
+            }
+        }
+        if (listener != null) listener.onGridlock(ids, cells, victim);
+    }
+
+    private static boolean sameCell(Map<Long, Integer> cars, long id, int cell) {
+        Integer seen = cars.get(id);
+        return seen != null && seen == cell;
+    }
+
+    private static Map<Long, Integer> remember(Map<Long, Integer> into, long[] ids, int[] cells) {
+        if (into == null) into = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) into.put(ids[i], cells[i]);
+        return into;
+    }
+}
@@ -1,40 +1,73 @@
 package app.core;
 
 import app.model.Car;
+import app.model.Grid;
 import app.model.RowSegment;
-
-import java.util.ArrayList;
-import java.util.List;
+import utils.CrossPlanTable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 public class InserterThread extends Thread {
-    private final int[][] grid;
+    /** Quantas entradas sortear antes de desistir da inserção neste intervalo. */
+    private static final int ENTRY_ATTEMPTS = 4;
+
+    private final Grid grid;
     private final SimulationState sim;
-    private final CellLockGrid locks;
+    private final Supplier<CellLockGrid> locksSupplier;     // locks em vigor (com ou sem instrumentação)
+    private final Executor carExecutor;                     // onde cada carro roda (ver CarExecutorFactory)
+    private final IntersectionManager[] intersections;      // um gerente de reservas por cruzamento
+    private final Supplier<RetryPolicy> retrySupplier;      // política em vigor (pode mudar durante a execução)
 
     private final IntSupplier maxCarsSupplier;              // spnMaxVeiculos::getValue
     private final IntSupplier minInsertMsSupplier;          // spnIntervaloMs::getValue
     private final Supplier<RowSegment> RowsegmentSupplier;  // findRandomEdgeRowSegment()
-    private final List<Car> spawned = new ArrayList<>();
+    /** Carros ainda rodando (id → carro): cada um sai do mapa quando termina. */
+    private final Map<Long, Car> live = new ConcurrentHashMap<>();
+    private final Consumer<Car> onCarDone = c -> live.remove(c.getId(), c);
 
     private volatile boolean inserting = true;
     private volatile boolean running = true;
 
+    /**
+     * A thread dorme nesta condição até o próximo evento: prazo da próxima inserção, saída de carro
+     * (quando está no limite de carros), retomada da inserção ou mudança de parâmetros ({@link #wakeUp()}).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wake = lock.newCondition();
+    /** Só sinaliza na saída de carro quando está de fato esperando vaga (evita lock a cada saída). */
+    private volatile boolean waitingForCapacity = false;
+    private final Runnable onCarExit = () -> {
+        if (waitingForCapacity) wakeUp();
+    };
+
     // @todo trocar por um valor aleatório
     // velocidade dos carros
     private final IntSupplier carStepMsSupplier;
 
-    public InserterThread(int[][] grid,
+    public InserterThread(Grid grid,
                           SimulationState sim,
-                          CellLockGrid locks,
+                          Supplier<CellLockGrid> locksSupplier,
+                          Executor carExecutor,
+                          Supplier<RetryPolicy> retrySupplier,
                           IntSupplier maxCarsSupplier,
                           IntSupplier minInsertMsSupplier,
                           IntSupplier carStepMsSupplier,
                           Supplier<RowSegment> RowsegmentSupplier) {
         this.grid = grid;
         this.sim = sim;
-        this.locks = locks;
+        this.locksSupplier = locksSupplier;
+        this.carExecutor = carExecutor;
+        this.intersections = IntersectionManager.forCrossings(CrossPlanTable.forGrid(grid).crossingCount());
+        this.retrySupplier = retrySupplier;
         this.maxCarsSupplier = maxCarsSupplier;
         this.minInsertMsSupplier = minInsertMsSupplier;
         this.carStepMsSupplier = carStepMsSupplier;
@@ -49,6 +82,17 @@ public class InserterThread extends Thread {
 
     public void resumeInserting() {
         inserting = true;
+        wakeUp();
+    }
+
+    /** Reavalia agora (ex.: limite de carros ou intervalo alterados na UI). */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            wake.signal();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void shutdown() {
@@ -56,56 +100,114 @@ public class InserterThread extends Thread {
         interrupt();
     }
 
-    public List<Car> getSpawned() {
-        return spawned;
+    /** Carros ainda rodando (visão ao vivo: quem termina some dela). */
+    public Collection<Car> getSpawned() {
+        return live.values();
+    }
+
+    /**
+     * Encerra um carro pelo id (ex.: vítima escolhida pelo {@link GridlockWatchdog}).
+     * @return true se o carro foi encontrado
+     */
+    public boolean stopCar(long id) {
+        Car c = live.get(id);
+        if (c == null) return false;
+        c.requestStop();
+        return true;
     }
 
+    /**
+     * Sorteia entradas até achar uma cuja primeira célula esteja livre e a reserva com {@code tryAcquire}.
+     * Assim nenhum carro fica parado esperando uma entrada congestionada (e fora do {@code activeCount}).
+     * @return entrada reservada, ou null se todas as tentativas estavam ocupadas (tenta no próximo intervalo)
+     */
+    private RowSegment claimEntry(CellLockGrid locks) {
+        for (int attempt = 0; attempt < ENTRY_ATTEMPTS; attempt++) {
+            RowSegment seg = RowsegmentSupplier.get();
+            if (seg == null) return null;
+            if (locks.tryAcquire(seg.getR0(), seg.getC0())) return seg;
+        }
+        return null;
+    }
+
+    /**
+     * Laço orientado a eventos: em vez de acordar a cada 10 ms, espera exatamente até o próximo
+     * instante em que uma inserção é possível.
+     * - Inserção pausada: dorme até {@link #resumeInserting()}.
+     * - Limite de carros atingido: dorme até um carro sair.
+     * - Intervalo mínimo não cumprido: dorme até {@code lastSpawn + minInsertMs}.
+     */
     @Override
     public void run() {
-        long lastSpawn = 0;
+        sim.addExitListener(onCarExit);
+        long nextSpawnAt = System.nanoTime();
+        lock.lock();
         try {
             while (running) {
+                if (!inserting) {
+                    wake.await();
+                    continue;
+                }
+
                 int maxCars = Math.max(1, maxCarsSupplier.getAsInt());
-                int minGap  = Math.max(1, minInsertMsSupplier.getAsInt());
-
-                long now = System.currentTimeMillis();
-
-                // Limite de carros ativos na simulação não atingido
-                boolean carsAvailable = sim.activeCount() < maxCars;
-                // Tempo mínimo de inserção satisfeito
-                boolean insertionGapFulfilled = (now - lastSpawn) >= minGap;
-
-                if (inserting && carsAvailable && insertionGapFulfilled) {
-                    RowSegment seg = RowsegmentSupplier.get();
-                    if (seg != null) {
-                        int step = carStepMsSupplier.getAsInt();
-
-                        Car v = new Car(
-                                sim,
-                                grid,
-                                locks,
-                                seg.getR0(),
-                                seg.getC0(),
-                                seg.getR1(),
-                                seg.getC1(),
-                                step,
-                                seg.getDirection()
-                        );
-
-                        v.start();
-                        synchronized (spawned) {
-                            spawned.add(v);
-                        }
-
-                        lastSpawn = now;
+                // Limite de carros ativos na simulação atingido: espera uma saída
+                if (sim.activeCount() >= maxCars) {
+                    waitingForCapacity = true;
+                    // confere de novo: a saída pode ter acontecido antes do flag ser visto
+                    if (sim.activeCount() >= maxCars) {
+                        wake.await();
                     }
+                    waitingForCapacity = false;
+                    continue;
+                }
+
+                // Tempo mínimo de inserção ainda não satisfeito: dorme até o prazo
+                long wait = nextSpawnAt - System.nanoTime();
+                if (wait > 0) {
+                    wake.awaitNanos(wait);
+                    continue;
+                }
+
+                // Controle de admissão: só cria o carro depois de reservar (sem esperar) uma entrada livre
+                // Os mesmos locks para a entrada e para o carro (o carro solta a célula reservada aqui)
+                CellLockGrid locks = locksSupplier.get();
+                RowSegment seg = claimEntry(locks);
+                if (seg != null) {
+                    int step = carStepMsSupplier.getAsInt();
+
+                    Car v = new Car(
+                            sim,
+                            grid,
+                            locks,
+                            intersections,
+                            retrySupplier.get(),
+                            seg.getR0(),
+                            seg.getC0(),
+                            seg.getR1(),
+                            seg.getC1(),
+                            step,
+                            seg.getDirection(),
+                            true,
+                            onCarDone
+                    );
+
+                    live.put(v.getId(), v);
+                    // O próprio carro vai para o executor (o CarExecutorFactory nomeia a thread pelo id)
+                    carExecutor.execute(v);
                 }
 
-                // Sleep adicionado para evitar que o while rode freneticamente sem necessidade
-                // O tempo de inclusão de um novo carro continua sendo parametrizado
-                Thread.sleep(10);
+                // Próximo prazo alinhado ao intervalo (não acumula o atraso do acordar);
+                // se ficou muito para trás (ex.: pausa), recomeça a contar de agora
+                int minGap = Math.max(1, minInsertMsSupplier.getAsInt());
+                long gapNanos = TimeUnit.MILLISECONDS.toNanos(minGap);
+                long now = System.nanoTime();
+                nextSpawnAt = (now - nextSpawnAt >= gapNanos) ? now + gapNanos : nextSpawnAt + gapNanos;
             }
-        } catch (InterruptedException ignored) {}
+        } catch (InterruptedException ignored) {
+        } finally {
+            lock.unlock();
+            sim.removeExitListener(onCarExit);
+        }
     }
 
 
@@ -0,0 +1,104 @@
+package app.core;
+
+import java.util.List;
+
+/**
+ * Decorador de {@link CellLockGrid} que registra a disputa por célula num {@link CellLockMetrics}.
+ *
+ * Não muda a forma de travar: cada chamada vai direto à grade original, só cronometrada
+ * (uma tentativa "rápida" antes poderia furar a fila de grades justas, como a de semáforos).
+ *
+ * Regras de contagem:
+ * - Todo tempo medido entra na espera total e máxima da célula.
+ * - Uma aquisição é "disputada" se demorou mais que {@link #CONTENDED_NANOS}: conseguir uma célula
+ *   livre custa bem menos que isso, e qualquer espera de verdade (park/wait) custa mais.
+ * - {@code tryAcquire} que falha conta como disputa sem espera.
+ * - A espera de um {@code acquireAll} conta para todas as células do caminho (o gargalo é o
+ *   cruzamento como um todo); um timeout também é contado em todas elas.
+ */
+public class InstrumentedCellLockGrid implements CellLockGrid {
+
+    /** Acima disso a aquisição precisou esperar por outra thread. */
+    static final long CONTENDED_NANOS = 20_000L;
+
+    private final CellLockGrid inner;
+    private final CellLockMetrics metrics;
+    private final int cols;
+
+    public InstrumentedCellLockGrid(CellLockGrid inner, CellLockMetrics metrics) {
+        this.inner = inner;
+        this.metrics = metrics;
+        this.cols = metrics.cols;
+    }
+
+    public CellLockMetrics metrics() {
+        return metrics;
+    }
+
+    private void record(int id, long waitNanos) {
+        metrics.acquired(id, waitNanos, waitNanos > CONTENDED_NANOS);
+    }
+
+    @Override
+    public void acquire(int r, int c) throws InterruptedException {
+        long start = System.nanoTime();
+        inner.acquire(r, c);
+        record(r * cols + c, System.nanoTime() - start);
+    }
+
+    @Override
+    public void release(int r, int c) {
+        inner.release(r, c);
+    }
+
+    @Override
+    public boolean tryAcquire(int r, int c) {
+        boolean ok = inner.tryAcquire(r, c);
+        if (ok) {
+            metrics.acquired(r * cols + c, 0L, false);
+        } else {
+            metrics.busy(r * cols + c);
+        }
+        return ok;
+    }
+
+    @Override
+    public boolean acquireAll(List<int[]> cells, long timeoutMs) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean ok = inner.acquireAll(cells, timeoutMs);
+        long waited = System.nanoTime() - start;
+        for (int[] p : cells) {
+            recordPath(p[0] * cols + p[1], waited, ok);
+        }
+        return ok;
+    }
+
+    @Override
+    public void releaseAll(List<int[]> cells) {
+        inner.releaseAll(cells);
+    }
+
+    @Override
+    public boolean acquireAll(int[] ids, int from, int len, long timeoutMs) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean ok = inner.acquireAll(ids, from, len, timeoutMs);
+        long waited = System.nanoTime() - start;
+        for (int i = from; i < from + len; i++) {
+            recordPath(ids[i], waited, ok);
+        }
+        return ok;
+    }
+
+    @Override
+    public void releaseAll(int[] ids, int from, int len) {
+        inner.releaseAll(ids, from, len);
+    }
+
+    private void recordPath(int id, long waited, boolean ok) {
+        if (ok) {
+            record(id, waited);
+        } else {
+            metrics.timedOut(id, waited);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package app.core;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gerente de reservas de UM cruzamento (bloco 2x2 ou célula isolada).
+ *
+ * Os carros pedem as células internas do caminho planejado como uma máscara de bits
+ * (ver {@code CrossPlanTable.internalMask}) e esperam até o pedido ser concedido.
+ *
+ * Política:
+ * - Fila FIFO de pedidos; a cada mudança a fila é percorrida em ordem.
+ * - Um pedido é concedido se não conflita com as células já concedidas NEM com as células
+ *   de pedidos mais antigos ainda na fila. Assim caminhos que não se sobrepõem atravessam
+ *   juntos (lote sem conflito) e ninguém "fura a fila" de quem chegou antes: sem starvation.
+ * - Cada pedido tem sua própria {@link Condition}: a concessão acorda exatamente quem foi atendido.
+ *
+ * As células continuam sendo travadas no {@link CellLockGrid} (o gerente só ordena o acesso),
+ * então a célula de saída — compartilhada com a via — segue protegida como antes.
+ */
+public final class IntersectionManager {
+
+    /** Pedido pendente na fila. */
+    private static final class Request {
+        final int mask;
+        final Condition granted;
+        boolean done;
+
+        Request(int mask, Condition granted) {
+            this.mask = mask;
+            this.granted = granted;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();
+    /** Células (bits) concedidas no momento. */
+    private int held;
+
+    /** Cria um gerente para cada cruzamento da malha (índices de {@code CrossPlanTable.crossingOf}). */
+    public static IntersectionManager[] forCrossings(int count) {
+        IntersectionManager[] managers = new IntersectionManager[count];
+        for (int i = 0; i < count; i++) managers[i] = new IntersectionManager();
+        return managers;
+    }
+
+    /**
+     * Pede as células {@code mask} e espera a concessão até {@code timeoutMs}.
+     * @return true se concedido; false se o prazo expirou (o pedido sai da fila)
+     */
+    public boolean acquire(int mask, long timeoutMs) throws InterruptedException {
+        lock.lock();
+        try {
+            // Caminho rápido: ninguém esperando e células livres
+            if (queue.isEmpty() && (held & mask) == 0) {
+                held |= mask;
+                return true;
+            }
+
+            Request req = new Request(mask, lock.newCondition());
+            queue.addLast(req);
+            dispatch();
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            try {
+                while (!req.done && remaining > 0) {
+                    remaining = req.granted.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                cancel(req);
+                throw e;
+            }
+            if (req.done) return true;
+
+            // timeout: desiste e deixa os de trás avançarem
+            cancel(req);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Devolve células (todas ou parte das concedidas) e atende quem puder na fila. */
+    public void release(int mask) {
+        if (mask == 0) return;
+        lock.lock();
+        try {
+            held &= ~mask;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Remove um pedido que desistiu (se já tinha sido concedido, devolve as células). Chamado com o lock. */
+    private void cancel(Request req) {
+        if (req.done) {
+            held &= ~req.mask;
+        } else {
+            queue.remove(req);
+        }
+        dispatch();
+    }
+
+    /**
+     * Percorre a fila em ordem FIFO concedendo todo pedido sem conflito com as células
+     * concedidas e com os pedidos mais antigos ainda bloqueados. Chamado com o lock.
+     */
+    private void dispatch() {
+        int blocked = held;
+        for (Iterator<Request> it = queue.iterator(); it.hasNext(); ) {
+            Request req = it.next();
+            if ((req.mask & blocked) == 0) {
+                held |= req.mask;
+                blocked |= req.mask;
+                req.done = true;
+                it.remove();
+                req.granted.signal();
+            } else {
+                blocked |= req.mask;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package app.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de durações (em nanossegundos) sem lock, para percentis (p50/p99) e máximo.
+ *
+ * Faixas log-lineares: cada potência de 2 é dividida em {@value #SUB_BUCKETS} faixas iguais, então o
+ * erro de um percentil é de no máximo ~6% do valor — o suficiente para comparar execuções — com
+ * um array fixo de contadores (sem alocação no registro, qualquer número de amostras).
+ *
+ * Registro: um incremento atômico na faixa + somadores striped para total, soma e máximo.
+ * Leituras são aproximadas enquanto há registros em paralelo (cada contador é lido uma vez).
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** Faixas para todo valor positivo de {@code long}. */
+    private static final int BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /** Faixa do valor: exata abaixo de {@value #SUB_BUCKETS}, depois 16 faixas por potência de 2. */
+    private static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + (int) ((v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /** Maior valor que cai na faixa. */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = (bucket >> SUB_BITS) - 1;
+        long low = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        long v = Math.max(0L, nanos);
+        counts.getAndIncrement(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Valor abaixo do qual ficam {@code percentile}% das amostras (limite superior da faixa,
+     * nunca acima do máximo observado). 0 se não há amostras.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Zera as amostras (registros concorrentes ao reset podem sobrar ou sumir). */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0L);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
@@ -2,5 +2,11 @@ package app.core;
 
 public enum LockMode {
     SEMAPHORE,
-    MONITOR
+    MONITOR,
+    MONITOR_LOCK,
+    /** Monitor com fila FIFO por célula e entrega direta ao próximo (sem notifyAll). */
+    MONITOR_FIFO,
+    CAS,
+    /** CAS com uma palavra (bitmask) por cruzamento 2x2: um caminho de travessia é reservado com um CAS. */
+    CROSS_MASK
 }
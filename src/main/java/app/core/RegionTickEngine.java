@@ -0,0 +1,493 @@
+package app.core;
+
+import app.model.Grid;
+import app.model.RowSegment;
+import utils.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Motor de ticks com a malha dividida em REGIÕES retangulares, cada uma avançada por uma thread própria.
+ *
+ * No {@link TickEngine} o planejamento é paralelo, mas a aplicação (a exclusão das células) é
+ * sequencial numa thread só. Aqui cada região é dona das células do seu retângulo: só a thread dela
+ * lê e escreve a ocupação dessas células, então dentro da região não há lock nem CAS.
+ *
+ * Divisão:
+ * - Faixas de linhas x faixas de colunas, com cortes escolhidos LONGE dos cruzamentos: cada cruzamento,
+ *   junto com as células de entrada e de saída ao redor, fica inteiro numa região. Assim reservar e
+ *   atravessar um cruzamento é sempre local.
+ * - Só o passo reto de uma célula de borda para a célula vizinha (de outra região) é uma passagem.
+ *
+ * Tick (todas as regiões em sincronia, com barreiras):
+ * 1) Cada região trata as respostas das passagens pedidas no tick anterior (aceita: libera a célula de
+ *    origem; recusada: o carro tenta de novo), insere o carro novo que lhe coube e avança os carros
+ *    vencidos na sua {@link TimingWheel}. Um passo para outra região vira um pedido na fila de entrada
+ *    da região vizinha.
+ * 2) Cada região atende os pedidos recebidos, por ordem de id: célula livre → o carro passa a ser dela
+ *    (ocupa, agenda na própria roda); ocupada → recusa. A resposta volta para a região de origem.
+ *
+ * As filas são limitadas pelo perímetro da região (nunca há mais carros na borda do que células),
+ * então oferecer nunca falha na prática; se falhasse, o carro só tentaria no próximo tick.
+ *
+ * A célula de origem de uma passagem só é liberada no tick seguinte (a região dona a libera), então
+ * ninguém entra nela no mesmo tick em que o carro saiu.
+ *
+ * Determinismo: com a mesma semente, parâmetros e número de regiões, a sequência de estados é a
+ * mesma (cada região aplica por ordem de id, os pedidos também são atendidos por ordem de id).
+ *
+ * As regras de movimento são as do {@link TickRules} (mesmas do {@link app.model.Car#run()}).
+ */
+public class RegionTickEngine extends Thread {
+
+    /** Horizonte da roda de tempo de cada região, em ticks. */
+    private static final int WHEEL_SLOTS = 1024;
+
+    private static final Comparator<TickCar> BY_ID = Comparator.comparingLong(car -> car.id);
+
+    /** Pedido de passagem de um carro para a célula {@code to}, em outra região. */
+    private static final class Handoff {
+        final TickCar car;
+        final int from, to;
+        final Region source;
+        /** Resposta (escrita pela região de destino antes de devolver o pedido). */
+        boolean accepted;
+
+        Handoff(TickCar car, int from, int to, Region source) {
+            this.car = car; this.from = from; this.to = to; this.source = source;
+        }
+    }
+
+    private final TickRules rules;
+    private final int rows, cols;
+    private final SimulationState sim;
+    private final long tickNanos;
+    private final int tickMs;
+
+    private final IntSupplier maxCarsSupplier;                            // spnMaxVeiculos::getValue
+    private final IntSupplier minInsertMsSupplier;                        // spnIntervaloMs::getValue
+    private final int minStepMs, maxStepMs;                               // faixa de velocidade dos carros
+    private final Function<RandomGenerator, RowSegment> segmentPicker;   // rota de entrada
+
+    private final long seed;
+    private final SplittableRandom rnd;
+
+    /** Dono de cada célula (id do carro; 0 = livre). Cada célula só é tocada pela região que a contém. */
+    private final long[] occupant;
+    /** Região de cada célula. */
+    private final int[] regionOf;
+    private final Region[] regions;
+    /** Regiões + a thread do motor (que insere e marca o ritmo). */
+    private final CyclicBarrier barrier;
+
+    private long nextCarId = 1;
+    /** Tick corrente: escrito pelo motor entre ticks, lido pelas regiões (visível pela barreira). */
+    private long tick = 0;
+
+    private volatile boolean inserting = true;
+    private volatile boolean running = true;
+
+    /**
+     * @param regionCount número desejado de regiões (threads); pode sair menor se a malha não
+     *                    tiver onde cortar longe dos cruzamentos
+     */
+    public RegionTickEngine(Grid grid,
+                            SimulationState sim,
+                            int tickMs,
+                            int regionCount,
+                            long seed,
+                            IntSupplier maxCarsSupplier,
+                            IntSupplier minInsertMsSupplier,
+                            int minStepMs,
+                            int maxStepMs,
+                            Function<RandomGenerator, RowSegment> segmentPicker) {
+        this.rules = new TickRules(grid);
+        this.rows = grid.rows;
+        this.cols = grid.cols;
+        this.sim = sim;
+        this.tickMs = Math.max(1, tickMs);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickMs);
+        this.seed = seed;
+        this.rnd = new SplittableRandom(seed);
+        this.maxCarsSupplier = maxCarsSupplier;
+        this.minInsertMsSupplier = minInsertMsSupplier;
+        this.minStepMs = minStepMs;
+        this.maxStepMs = Math.max(minStepMs, maxStepMs);
+        this.segmentPicker = segmentPicker;
+        this.occupant = new long[rows * cols];
+        this.regionOf = new int[rows * cols];
+        this.regions = partition(grid, Math.max(1, regionCount));
+        this.barrier = new CyclicBarrier(regions.length + 1);
+        setName("RegionTickEngine");
+        setDaemon(true);
+    }
+
+    public void stopInserting() {
+        inserting = false;
+    }
+
+    public void resumeInserting() {
+        inserting = true;
+    }
+
+    public void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    /** Quantidade de regiões (threads) em que a malha foi dividida. */
+    public int regionCount() {
+        return regions.length;
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    /* ===================== DIVISÃO DA MALHA ===================== */
+
+    /**
+     * Divide a malha em faixas de linhas x faixas de colunas (proporcionais ao formato da malha)
+     * e preenche {@link #regionOf}.
+     */
+    private Region[] partition(Grid grid, int wanted) {
+        // cortes proibidos: entre a célula de entrada e a de saída de qualquer cruzamento
+        boolean[] rowCutBlocked = new boolean[rows + 1];
+        boolean[] colCutBlocked = new boolean[cols + 1];
+        for (RoadGraph.Node n : RoadGraph.forGrid(grid).nodes()) {
+            for (int k = n.topRow; k <= n.topRow + n.size && k <= rows; k++) rowCutBlocked[k] = true;
+            for (int k = n.topCol; k <= n.topCol + n.size && k <= cols; k++) colCutBlocked[k] = true;
+        }
+
+        int rowBands = (int) Math.max(1, Math.min(wanted, Math.round(Math.sqrt((double) wanted * rows / cols))));
+        int colBands = Math.max(1, wanted / rowBands);
+        int[] rowStarts = bands(rows, rowBands, rowCutBlocked);
+        int[] colStarts = bands(cols, colBands, colCutBlocked);
+
+        int nr = rowStarts.length - 1, nc = colStarts.length - 1;
+        Region[] out = new Region[nr * nc];
+        for (int i = 0; i < nr; i++) {
+            for (int j = 0; j < nc; j++) {
+                int index = i * nc + j;
+                out[index] = new Region(index, rowStarts[i], rowStarts[i + 1], colStarts[j], colStarts[j + 1]);
+                for (int r = rowStarts[i]; r < rowStarts[i + 1]; r++)
+                    for (int c = colStarts[j]; c < colStarts[j + 1]; c++)
+                        regionOf[idOf(r, c)] = index;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Início de cada faixa (+ {@code length} no fim). Cada corte vai para a posição permitida mais
+     * próxima da ideal; cortes que não cabem (ou repetiriam o anterior) são descartados.
+     * @param blocked {@code blocked[k]} = não se pode cortar entre {@code k - 1} e {@code k}
+     */
+    private static int[] bands(int length, int count, boolean[] blocked) {
+        int[] starts = new int[count + 1];
+        int n = 0;
+        starts[n++] = 0;
+        for (int b = 1; b < count; b++) {
+            int ideal = (int) ((long) length * b / count);
+            int cut = -1;
+            for (int d = 0; d < length && cut < 0; d++) {
+                if (ideal - d > starts[n - 1] && !blocked[ideal - d]) cut = ideal - d;
+                else if (ideal + d < length && ideal + d > starts[n - 1] && !blocked[ideal + d]) cut = ideal + d;
+            }
+            if (cut > 0) starts[n++] = cut;
+        }
+        starts[n++] = length;
+        return Arrays.copyOf(starts, n);
+    }
+
+    /* ===================== LAÇO DO MOTOR ===================== */
+
+    @Override
+    public void run() {
+        List<Thread> workers = new ArrayList<>(regions.length);
+        for (Region region : regions) {
+            Thread t = new Thread(region, "Region-" + region.index);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+
+        long lastSpawnTick = Long.MIN_VALUE / 2;
+        long next = System.nanoTime();
+        try {
+            while (running) {
+                // Inserção (no máximo um carro por intervalo mínimo): a região da entrada decide se cabe
+                int minGapTicks = Math.max(1, Math.max(1, minInsertMsSupplier.getAsInt()) / tickMs);
+                Region spawnRegion = null;
+                if (inserting && tick - lastSpawnTick >= minGapTicks
+                        && sim.activeCount() < Math.max(1, maxCarsSupplier.getAsInt())) {
+                    spawnRegion = offerSpawn();
+                }
+
+                barrier.await(); // regiões: fase 1 (respostas, inserção, carros vencidos)
+                barrier.await(); // regiões: fase 2 (pedidos de passagem)
+                barrier.await(); // tick concluído
+
+                if (spawnRegion != null && spawnRegion.spawnAccepted) {
+                    lastSpawnTick = tick;
+                }
+                tick++;
+
+                // Mantém o ritmo de um tick por tickMs (se atrasou, emenda os ticks sem dormir)
+                next += tickNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        } catch (InterruptedException | BrokenBarrierException ignored) {
+            // encerrando
+        } finally {
+            running = false;
+            barrier.reset(); // acorda quem estiver esperando na barreira
+            for (Thread t : workers) t.interrupt();
+            for (Thread t : workers) {
+                try {
+                    t.join();
+                } catch (InterruptedException ignored) {
+                    // segue encerrando os demais
+                }
+            }
+            // [SHUTDOWN] – remove todos os carros do estado (onExit ignora quem já saiu)
+            for (Region region : regions) region.exitAll();
+        }
+    }
+
+    /**
+     * Sorteia a entrada e entrega o carro novo à região dona dela.
+     * @return a região que vai tentar inserir, ou null se não há entrada
+     */
+    private Region offerSpawn() {
+        RowSegment seg = segmentPicker.apply(rnd);
+        if (seg == null) return null;
+
+        int stepMs = minStepMs + rnd.nextInt(maxStepMs - minStepMs + 1);
+        int stepTicks = Math.max(1, Math.round((float) stepMs / tickMs));
+        TickCar car = new TickCar(nextCarId++, seg.getR0(), seg.getC0(), seg.getR1(), seg.getC1(),
+                seg.getDirection(), stepTicks, seed);
+
+        Region region = regions[regionOf[idOf(car.row, car.col)]];
+        region.spawn = car;
+        return region;
+    }
+
+    /* ===================== REGIÃO ===================== */
+
+    /** Um retângulo da malha e a thread que avança os carros dentro dele. */
+    private final class Region implements Runnable {
+        final int index;
+        /** Retângulo [r0, r1) x [c0, c1). */
+        final int r0, r1, c0, c1;
+
+        final TimingWheel wheel = new TimingWheel(WHEEL_SLOTS);
+        final List<TickCar> due = new ArrayList<>();
+
+        /** Pedidos de passagem de carros das regiões vizinhas para cá. */
+        final ArrayBlockingQueue<Handoff> inbox;
+        /** Respostas aos pedidos feitos POR esta região. */
+        final ArrayBlockingQueue<Handoff> replies;
+        private final List<Handoff> incoming = new ArrayList<>();
+
+        /** Carro novo deste tick (entregue pelo motor antes da barreira) e o resultado da inserção. */
+        TickCar spawn;
+        boolean spawnAccepted;
+
+        Region(int index, int r0, int r1, int c0, int c1) {
+            this.index = index;
+            this.r0 = r0; this.r1 = r1; this.c0 = c0; this.c1 = c1;
+            // no máximo um carro por célula da borda (de um lado ou do outro)
+            int perimeter = 2 * ((r1 - r0) + (c1 - c0));
+            this.inbox = new ArrayBlockingQueue<>(perimeter);
+            this.replies = new ArrayBlockingQueue<>(perimeter);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    barrier.await();
+                    advance();
+                    barrier.await();
+                    receive();
+                    barrier.await();
+                }
+            } catch (InterruptedException | BrokenBarrierException ignored) {
+                // encerrando
+            }
+        }
+
+        /** Fase 1: respostas do tick anterior, inserção e carros vencidos (por ordem de id). */
+        private void advance() {
+            for (Handoff h; (h = replies.poll()) != null; ) {
+                if (h.accepted) {
+                    occupant[h.from] = 0; // o carro já está na outra região
+                } else {
+                    // destino ocupado: mantém a intenção e tenta de novo já neste tick
+                    sim.onBlocked(h.car.slot, tickNanos);
+                    wheel.schedule(h.car, tick);
+                }
+            }
+
+            spawnAccepted = false;
+            TickCar car = spawn;
+            spawn = null;
+            if (car != null) {
+                int cell = idOf(car.row, car.col);
+                if (occupant[cell] == 0) { // entrada ocupada: o motor tenta no próximo tick
+                    occupant[cell] = car.id;
+                    car.slot = sim.onSpawn(car.id, car.row, car.col);
+                    wheel.schedule(car, tick + car.stepTicks);
+                    spawnAccepted = true;
+                }
+            }
+
+            due.clear();
+            wheel.drainDue(tick, due);
+            if (due.isEmpty()) return;
+            for (TickCar c : due) rules.plan(c);
+            due.sort(BY_ID);
+            for (TickCar c : due) apply(c);
+        }
+
+        /** Fase 2: atende os pedidos de passagem recebidos, por ordem de id. */
+        private void receive() {
+            incoming.clear();
+            inbox.drainTo(incoming);
+            if (incoming.isEmpty()) return;
+            incoming.sort(Comparator.comparingLong(h -> h.car.id));
+            for (Handoff h : incoming) {
+                TickCar car = h.car;
+                if (occupant[h.to] == 0) {
+                    occupant[h.to] = car.id;
+                    car.row = car.targetRow;
+                    car.col = car.targetCol;
+                    car.steppedOnRoad();
+                    car.direction = car.targetDir;
+                    car.intent = TickCar.INTENT_NONE;
+                    sim.onMove(car.slot, car.row, car.col);
+                    wheel.schedule(car, tick + car.stepTicks);
+                    h.accepted = true;
+                }
+                h.source.replies.add(h); // cabe sempre: a origem tem no máximo um pedido por célula de borda
+            }
+        }
+
+        private boolean owns(int cell) {
+            return regionOf[cell] == index;
+        }
+
+        /** Aplica a intenção do carro contra a ocupação da região e reagenda (mesmas regras do {@link TickEngine}). */
+        private void apply(TickCar car) {
+            switch (car.intent) {
+                case TickCar.INTENT_EXIT -> {
+                    occupant[idOf(car.row, car.col)] = 0;
+                    car.intent = TickCar.INTENT_NONE;
+                    sim.onExit(car.slot);
+                    return; // não reagenda
+                }
+                case TickCar.INTENT_MOVE -> {
+                    int target = idOf(car.targetRow, car.targetCol);
+                    if (!owns(target)) {
+                        // célula de outra região: pede a passagem (a resposta chega no próximo tick)
+                        Handoff h = new Handoff(car, idOf(car.row, car.col), target, this);
+                        if (!regions[regionOf[target]].inbox.offer(h)) {
+                            sim.onBlocked(car.slot, tickNanos);
+                            wheel.schedule(car, tick + 1);
+                        }
+                        return;
+                    }
+                    if (occupant[target] != 0) {
+                        // célula ocupada: mantém a intenção e tenta de novo no próximo tick
+                        sim.onBlocked(car.slot, tickNanos);
+                        wheel.schedule(car, tick + 1);
+                        return;
+                    }
+                    moveTo(car, car.targetRow, car.targetCol);
+                    car.steppedOnRoad();
+                    car.direction = car.targetDir;
+                    car.intent = TickCar.INTENT_NONE;
+                }
+                case TickCar.INTENT_CROSS -> {
+                    List<int[]> cells = car.plan.cells;
+                    for (int[] p : cells) {
+                        int cell = idOf(p[0], p[1]);
+                        // (os cortes evitam cruzamentos: um caminho fora da região não acontece na prática)
+                        if (!owns(cell) || occupant[cell] != 0) {
+                            // não deu para reservar o caminho inteiro: replaneja depois de um passo
+                            sim.onBlocked(car.slot, car.stepTicks * tickNanos);
+                            car.intent = TickCar.INTENT_NONE;
+                            car.plan = null;
+                            wheel.schedule(car, tick + car.stepTicks);
+                            return;
+                        }
+                    }
+                    // Reserva todas as células (internas + 1ª fora) e já entra na primeira
+                    for (int[] p : cells) occupant[idOf(p[0], p[1])] = car.id;
+                    car.crossing = car.plan;
+                    car.plan = null;
+                    car.crossingPos = -1;
+                    car.intent = TickCar.INTENT_NONE;
+                    advanceCrossing(car);
+                }
+                case TickCar.INTENT_ADVANCE -> {
+                    car.intent = TickCar.INTENT_NONE;
+                    advanceCrossing(car);
+                }
+                default -> {
+                    // INTENT_WAIT: só espera um passo
+                    if (car.intent == TickCar.INTENT_WAIT) sim.onBlocked(car.slot, car.stepTicks * tickNanos);
+                    car.intent = TickCar.INTENT_NONE;
+                }
+            }
+            wheel.schedule(car, tick + car.stepTicks);
+        }
+
+        /** Avança uma célula dentro do caminho reservado; ao chegar à célula de saída, adota a direção de saída. */
+        private void advanceCrossing(TickCar car) {
+            int[] step = car.crossing.cells.get(++car.crossingPos);
+            moveTo(car, step[0], step[1]);
+            if (car.crossingPos == car.crossing.cells.size() - 1) {
+                car.direction = car.crossing.exitDir;
+                car.edgeLeft = -1;
+                car.crossing = null;
+                sim.onCrossing(car.slot);
+                car.crossingPos = -1;
+            }
+        }
+
+        /** Move o carro para (r, c) dentro da região, libera a célula anterior e publica a posição. */
+        private void moveTo(TickCar car, int r, int c) {
+            occupant[idOf(car.row, car.col)] = 0;
+            occupant[idOf(r, c)] = car.id;
+            car.row = r;
+            car.col = c;
+            sim.onMove(car.slot, r, c);
+        }
+
+        /** Encerramento: tira do estado os carros agendados e os que estavam em passagem. */
+        void exitAll() {
+            due.clear();
+            wheel.drainAll(due);
+            for (Handoff h : inbox) due.add(h.car);
+            for (Handoff h : replies) {
+                if (!h.accepted) due.add(h.car);
+            }
+            for (TickCar car : due) sim.onExit(car.slot, false);
+            due.clear();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package app.core;
+
+/**
+ * Como o carro tenta de novo quando não consegue reservar um cruzamento (ver {@link RetryPolicy}).
+ */
+public enum RetryMode {
+    /** Prazo fixo de 200 ms e nova tentativa depois de um passo inteiro — comportamento original. */
+    FIXED,
+    /**
+     * Prazo ajustado à ocupação observada de cada cruzamento, backoff exponencial com jitter
+     * e limite de replanejamentos.
+     */
+    ADAPTIVE
+}
@@ -0,0 +1,37 @@
+package app.core;
+
+/**
+ * Política de nova tentativa dos carros num cruzamento: quanto esperar pela reserva, quanto
+ * esperar antes de tentar de novo e quando parar de sortear outro caminho.
+ *
+ * Uma instância atende a malha inteira (os cruzamentos são os índices de {@code CrossPlanTable.crossingOf})
+ * e é compartilhada por todos os carros: as implementações são thread-safe.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Prazo (ms) para o pedido ao {@link IntersectionManager} e para o {@code acquireAll} do caminho.
+     * @param crossing índice do cruzamento
+     * @param stepMs   passo do carro (ms por célula)
+     */
+    long timeoutMs(int crossing, int stepMs);
+
+    /**
+     * Espera (ms) antes da próxima tentativa.
+     * @param failures tentativas seguidas que falharam neste cruzamento (1, 2, ...)
+     * @param stepMs   passo do carro (ms por célula)
+     */
+    long backoffMs(int failures, int stepMs);
+
+    /**
+     * Falhas seguidas a partir das quais o carro insiste no mesmo caminho em vez de sortear outro
+     * ({@link Integer#MAX_VALUE} = sorteia sempre).
+     */
+    int replanLimit();
+
+    /**
+     * Travessia concluída: o caminho ficou reservado por {@code nanos}.
+     * Alimenta as políticas que se ajustam à ocupação dos cruzamentos.
+     */
+    default void onCrossed(int crossing, long nanos) {}
+}
@@ -0,0 +1,17 @@
+package app.core;
+
+import app.model.Grid;
+import utils.CrossPlanTable;
+
+public final class RetryPolicyFactory {
+
+    private RetryPolicyFactory() {}
+
+    /** Política nova (sem histórico) para os cruzamentos da malha. */
+    public static RetryPolicy create(RetryMode mode, Grid grid) {
+        return switch (mode) {
+            case FIXED    -> new FixedRetryPolicy(FixedRetryPolicy.DEFAULT_TIMEOUT_MS);
+            case ADAPTIVE -> new AdaptiveRetryPolicy(CrossPlanTable.forGrid(grid).crossingCount());
+        };
+    }
+}
@@ -1,99 +1,405 @@
 package app.core;
 
-import app.view.CarColors;
-import javafx.scene.paint.Color;
-
-import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
 
 /**
  * Armazena e expõe o estado da simulação de forma thread-safe para a UI.
  *
  * Responsabilidades:
  * - Registrar o nascimento (spawn), movimentação (move) e saída (exit) de cada carro.
- * - Fornecer um snapshot iterável das posições para o renderer (JavaFX).
+ * - Fornecer uma varredura das posições ({@link #forEachCar}) para o renderer (JavaFX) ou para o runner headless.
+ * - Registrar QUAIS células mudaram desde o último frame (ver {@link #drainDirty}), para a UI
+ *   repintar só essas células em vez de todos os carros.
+ * - Medir cada viagem (tempo, células, cruzamentos, tempo bloqueado) e entregá-la ao sair para as
+ *   {@link TravelStats} (ver {@link #stats()}).
+ *
+ * Não depende do JavaFX: aparência (cor de cada carro etc.) é resolvida pela view a partir do id.
+ *
+ * Armazenamento ("struct of arrays"): cada carro ativo ocupa um SLOT, devolvido pelo {@link #onSpawn}.
+ * - {@code carIds[slot]}: id do carro; {@code positions[slot]}: (r, c) empacotados num único {@code long}.
+ * - Dados da viagem em andamento ({@code spawnNanos}, {@code cellsMoved}, {@code crossingsTaken},
+ *   {@code blockedNanos}): escritos só pela thread dona do carro, lidos por ela mesma no {@link #onExit}.
+ * - {@code waitingFor[slot]}: célula pela qual o carro está bloqueado ({@link #onWaiting}), lida pelo
+ *   {@link GridlockWatchdog} para montar o grafo de espera.
+ * - Slots livres ficam numa pilha sem lock e são reaproveitados.
+ * - Os arrays por slot vêm em blocos de {@value #CHUNK} slots ({@link Chunk}), alocados conforme os
+ *   carros chegam: o custo de memória acompanha o número de carros ativos, não o tamanho da malha.
+ *   Um bloco nunca é copiado nem trocado, então crescer não atrapalha quem está escrevendo.
+ * - Só a ocupação e o bitmap de células sujas são por célula ({@code rows * cols}).
+ * - Como cada carro ocupa uma célula própria, nunca há mais carros ativos que células.
  *
  * Concorrência:
- * - Usa {@link ConcurrentHashMap} para permitir leituras e escritas simultâneas.
- * - Cada {@link CarInfo} mantém r/c como {@code volatile} para garantir visibilidade
- *   imediata entre threads (threads dos carros escrevem; thread JavaFX lê).
+ * - {@code onMove}/{@code onExit} recebem o slot: sem boxing e sem busca em mapa no passo do carro.
+ * - A posição é escrita de uma vez (um {@code long}): quem lê nunca vê um par (r, c) "rasgado".
+ * - Ocupação por célula e bitmap de células "sujas" são atômicos e sem lock: os carros só marcam bits,
+ *   a UI drena o bitmap uma vez por frame. Várias mudanças na mesma célula no mesmo frame viram um bit só.
  */
 public class SimulationState {
 
+    /** Permite "OR" atômico direto num long[] (uma instrução, sem laço de CAS). */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Posição de um slot livre. */
+    private static final long FREE = -1L;
+
+    /** Slots por bloco (potência de 2). */
+    static final int CHUNK = 1024;
+    private static final int CHUNK_BITS = Integer.numberOfTrailingZeros(CHUNK);
+    private static final int CHUNK_MASK = CHUNK - 1;
+
+    /** Arrays de {@value #CHUNK} slots consecutivos (índice = {@code slot & CHUNK_MASK}). */
+    private static final class Chunk {
+        final long[] carIds = new long[CHUNK];
+        final AtomicLongArray positions = new AtomicLongArray(CHUNK);
+        /** Próximo da pilha de slots livres (índice + 1; 0 = fim). */
+        final int[] nextFree = new int[CHUNK];
+
+        // Viagem em andamento de cada slot
+        final long[] spawnNanos = new long[CHUNK];
+        final int[] cellsMoved = new int[CHUNK];
+        final int[] crossingsTaken = new int[CHUNK];
+        final long[] blockedNanos = new long[CHUNK];
+        /** Célula esperada por slot (-1 = não está esperando). */
+        final AtomicIntegerArray waitingFor = new AtomicIntegerArray(CHUNK);
+
+        Chunk() {
+            for (int i = 0; i < CHUNK; i++) {
+                positions.set(i, FREE);
+                waitingFor.set(i, -1);
+            }
+        }
+    }
+
+    /** Recebe cada carro ativo durante {@link #forEachCar}. */
+    @FunctionalInterface
+    public interface CarVisitor {
+        void visit(long id, int r, int c);
+    }
+
+    /** Recebe cada carro ativo durante {@link #forEachCarWait}. */
+    @FunctionalInterface
+    public interface WaitVisitor {
+        /**
+         * @param cell        célula ocupada ({@code r * cols + c})
+         * @param waitingCell célula pela qual o carro espera, ou -1
+         */
+        void visit(int slot, long id, int cell, int waitingCell);
+    }
+
+    /** Avisados a cada saída de carro (ex.: o inserter esperando vaga). */
+    private final List<Runnable> exitListeners = new CopyOnWriteArrayList<>();
+
+    private final TravelStats stats = new TravelStats();
+
+    /** Total de carros que já saíram do estado (para medir vazão). */
+    private final LongAdder exited = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final int rows, cols;
+    /** Id do carro em cada célula (0 = vazia), índice {@code r * cols + c}. */
+    private final AtomicLongArray occupant;
+    /** Um bit por célula: mudou desde o último {@link #drainDirty}. */
+    private final long[] dirty;
+
+    // Slots dos carros
+    /** Blocos já alocados; trocado (cópia + bloco novo) só ao crescer, sob o monitor do estado. */
+    private volatile Chunk[] chunks;
+    /** Teto de slots: um carro por célula. */
+    private final int maxSlots;
+    /** Topo da pilha: versão (32 bits altos, contra ABA) | slot + 1 (32 bits baixos). */
+    private final AtomicLong freeHead = new AtomicLong();
+    /** Maior slot já usado + 1: a varredura não passa daqui. */
+    private final AtomicInteger highWater = new AtomicInteger();
+
+    public SimulationState(int rows, int cols) {
+        this(rows, cols, CHUNK);
+    }
+
     /**
-     * DTO de leitura/atualização da posição do carro.
-     * - {@code id} e {@code color} são imutáveis após construção.
-     * - {@code r} e {@code c} são {@code volatile} para garantir que a UI visualize
-     *   as atualizações feitas pelas threads dos carros sem precisar de bloqueio extra.
+     * @param expectedCars carros ativos esperados (ex.: o limite da UI): já aloca slots para eles;
+     *                     acima disso o estado cresce sozinho
      */
-    public static final class CarInfo {
-        public final long id;
-        public final Color color;
-        private volatile int r, c;
+    public SimulationState(int rows, int cols, int expectedCars) {
+        this.rows = rows;
+        this.cols = cols;
+        this.occupant = new AtomicLongArray(rows * cols);
+        this.dirty = new long[(rows * cols + 63) >>> 6];
 
-        CarInfo(long id, int r, int c, Color color) {
-            this.id = id;
-            this.r = r;
-            this.c = c;
-            this.color = color;
+        this.maxSlots = rows * cols;
+        int initial = (Math.max(1, Math.min(expectedCars, maxSlots)) + CHUNK_MASK) >>> CHUNK_BITS;
+        Chunk[] cs = new Chunk[initial];
+        for (int i = 0; i < initial; i++) cs[i] = new Chunk();
+        this.chunks = cs;
+    }
 
+    /** Bloco do slot (que já foi entregue pelo {@link #allocSlot}). */
+    private Chunk chunk(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    /** Garante o bloco do slot, alocando os que faltam. */
+    private Chunk ensureChunk(int slot) {
+        int index = slot >>> CHUNK_BITS;
+        Chunk[] cs = chunks;
+        if (index < cs.length) return cs[index];
+        synchronized (this) {
+            cs = chunks;
+            if (index >= cs.length) {
+                Chunk[] grown = Arrays.copyOf(cs, index + 1);
+                for (int i = cs.length; i < grown.length; i++) grown[i] = new Chunk();
+                chunks = cs = grown;
+            }
+            return cs[index];
         }
+    }
+
+    /** Slots alocados até agora (cresce com o número de carros, até {@code rows * cols}). */
+    public int slotCapacity() {
+        return Math.min(maxSlots, chunks.length << CHUNK_BITS);
+    }
+
+    private static long pack(int r, int c) {
+        return ((long) r << 32) | (c & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Publica um novo carro no estado (chamado quando o carro ocupa a célula de entrada).
+     * @return slot do carro, a ser informado em {@link #onMove} e {@link #onExit}
+     */
+    public int onSpawn(long id, int r, int c) {
+        int slot = allocSlot();
+        Chunk k = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        k.carIds[i] = id;
+        k.spawnNanos[i] = System.nanoTime();
+        k.cellsMoved[i] = 0;
+        k.crossingsTaken[i] = 0;
+        k.blockedNanos[i] = 0L;
+        k.positions.setRelease(i, pack(r, c)); // publica o id junto com a posição
+        active.incrementAndGet();
+        occupy(id, r, c);
+        return slot;
+    }
+
+    /**
+     * Atualiza a posição do carro do slot. Slot inválido ou já liberado é ignorado silenciosamente.
+     * A posição nova é visível imediatamente à UI (escrita atômica).
+     */
+    public void onMove(int slot, int r, int c) {
+        if (slot < 0) return;
+        Chunk k = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        long old = k.positions.get(i);
+        if (old == FREE) return;
+        long id = k.carIds[i];
+        vacate(id, (int) (old >> 32), (int) old);
+        k.positions.set(i, pack(r, c));
+        k.cellsMoved[i]++;
+        occupy(id, r, c);
+    }
+
+    /** O carro do slot terminou a travessia de um cruzamento (chamado pela thread dona do carro). */
+    public void onCrossing(int slot) {
+        if (slot >= 0) chunk(slot).crossingsTaken[slot & CHUNK_MASK]++;
+    }
+
+    /**
+     * O carro do slot vai bloquear (sem prazo) esperando a célula (r, c), que segura a atual enquanto isso.
+     * A espera termina no próximo {@link #onBlocked}.
+     */
+    public void onWaiting(int slot, int r, int c) {
+        if (slot >= 0) chunk(slot).waitingFor.setRelease(slot & CHUNK_MASK, r * cols + c);
+    }
 
-        public int getR() {
-            return r;
+    /**
+     * O carro do slot ficou {@code nanos} esperando célula/cruzamento (chamado pela thread dona do carro).
+     * Encerra a espera registrada em {@link #onWaiting}, se houver.
+     */
+    public void onBlocked(int slot, long nanos) {
+        if (slot < 0) return;
+        Chunk k = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        if (nanos > 0) k.blockedNanos[i] += nanos;
+        if (k.waitingFor.getPlain(i) >= 0) k.waitingFor.setRelease(i, -1);
+    }
+
+    /** Remove o carro que concluiu a viagem (saiu da malha ou chegou ao fim da rota). */
+    public void onExit(int slot) {
+        onExit(slot, true);
+    }
+
+    /**
+     * Remove o carro do estado e devolve o slot (chamado ao encerrar o carro).
+     * @param finished true se a viagem terminou (entra nas {@link TravelStats}); false se foi interrompida
+     */
+    public void onExit(int slot, boolean finished) {
+        if (slot < 0) return;
+        Chunk k = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        long old = k.positions.getAndSet(i, FREE);
+        if (old == FREE) return; // já tinha saído
+        if (finished) {
+            stats.record(System.nanoTime() - k.spawnNanos[i], k.blockedNanos[i], k.cellsMoved[i], k.crossingsTaken[i]);
+        } else {
+            stats.recordAborted();
         }
+        vacate(k.carIds[i], (int) (old >> 32), (int) old);
+        k.waitingFor.setRelease(i, -1);
+        active.decrementAndGet();
+        exited.increment();
+        freeSlot(slot);
+        for (Runnable l : exitListeners) l.run();
+    }
+
+    /** Registra um aviso de saída de carro (roda na thread do carro que saiu: deve ser rápido). */
+    public void addExitListener(Runnable listener) {
+        exitListeners.add(listener);
+    }
+
+    public void removeExitListener(Runnable listener) {
+        exitListeners.remove(listener);
+    }
 
-        public int getC() {
-            return c;
+    /** Tira um slot da pilha de livres; se vazia, usa um slot nunca usado (alocando o bloco, se preciso). */
+    private int allocSlot() {
+        while (true) {
+            long head = freeHead.get();
+            int top = (int) head;
+            if (top == 0) break;
+            long next = ((head >>> 32) + 1) << 32 | (chunk(top - 1).nextFree[(top - 1) & CHUNK_MASK] & 0xFFFFFFFFL);
+            if (freeHead.compareAndSet(head, next)) return top - 1;
         }
+        int slot = highWater.getAndIncrement();
+        if (slot >= maxSlots) {
+            highWater.decrementAndGet();
+            throw new IllegalStateException("Mais carros ativos do que células na malha: " + maxSlots);
+        }
+        ensureChunk(slot);
+        return slot;
+    }
 
-        void set(int r, int c) {
-            this.r = r; this.c = c;
+    private void freeSlot(int slot) {
+        while (true) {
+            long head = freeHead.get();
+            chunk(slot).nextFree[slot & CHUNK_MASK] = (int) head;
+            long next = ((head >>> 32) + 1) << 32 | (slot + 1);
+            if (freeHead.compareAndSet(head, next)) return;
         }
     }
 
-    /** Mapa thread-safe id → info do carro. */
-    private final ConcurrentMap<Long, CarInfo> cars = new ConcurrentHashMap<>();
+    private void occupy(long id, int r, int c) {
+        int cell = r * cols + c;
+        occupant.set(cell, id);
+        markDirty(cell);
+    }
 
-    /**
-     * Publica um novo carro no estado (chamado quando a thread do carro nasce).
-     * A publicação no {@link ConcurrentHashMap} garante visibilidade segura do objeto {@link CarInfo}.
-     */
-    public void onSpawn(long id, int r, int c) {
-        cars.put(
-                id,
-                new CarInfo(id, r, c, CarColors.colorForId(id)));
+    /** Só limpa se a célula ainda é deste carro (quem entrou depois não é apagado). */
+    private void vacate(long id, int r, int c) {
+        int cell = r * cols + c;
+        occupant.compareAndSet(cell, id, 0L);
+        markDirty(cell);
+    }
+
+    private void markDirty(int cell) {
+        int w = cell >>> 6;
+        long bit = 1L << cell;
+        // leitura barata antes: se já está marcado não disputa a linha de cache com outros escritores
+        if (((long) WORDS.getAcquire(dirty, w) & bit) == 0) {
+            WORDS.getAndBitwiseOr(dirty, w, bit);
+        }
     }
 
     /**
-     * Atualiza a posição do carro. Se o carro já foi removido, ignora silenciosamente.
-     * As atualizações são visíveis imediatamente à UI graças aos campos {@code volatile}.
+     * Entrega (e zera) as células que mudaram desde a última chamada.
+     * Feito para UM consumidor (a thread da UI); os produtores podem continuar marcando em paralelo.
      */
-    public void onMove (long id, int r, int c) {
-        CarInfo info = cars.get(id);
-        if (info != null) {
-            info.set(r, c);
-        };
+    public void drainDirty(IntConsumer cellConsumer) {
+        for (int w = 0; w < dirty.length; w++) {
+            if ((long) WORDS.getAcquire(dirty, w) == 0) continue;
+            long bits = (long) WORDS.getAndSet(dirty, w, 0L);
+            while (bits != 0) {
+                int b = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                cellConsumer.accept((w << 6) + b);
+            }
+        }
+    }
+
+    /** Id do carro na célula (0 = vazia). */
+    public long occupantAt(int cell) {
+        return occupant.get(cell);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
     }
 
-    /** Remove o carro do estado (chamado ao encerrar a thread do carro). */
-    public void onExit (long id) {
-        cars.remove(id);
+    /** Estatísticas das viagens concluídas desde a criação do estado (ou do último reset). */
+    public TravelStats stats() {
+        return stats;
     }
 
     /**
      * Quantidade de carros ativos no momento.
      */
     public int activeCount() {
-        return cars.size();
+        return active.get();
     }
 
     /**
-     * Snapshot iterável das posições
+     * Quantidade de carros que já saíram desde a criação do estado.
      */
-    public Collection<CarInfo> snapshotPositions() {
-        return cars.values();
+    public long exitedCount() {
+        return exited.sum();
+    }
+
+    /**
+     * Varre os carros ativos (array contíguo, sem alocação). Cada posição entregue é consistente;
+     * carros que entram/saem durante a varredura podem ou não aparecer.
+     */
+    public void forEachCar(CarVisitor visitor) {
+        Chunk[] cs = chunks;
+        int n = Math.min(highWater.get(), cs.length << CHUNK_BITS); // bloco ainda sendo criado: só slots livres
+        for (int slot = 0; slot < n; slot++) {
+            Chunk k = cs[slot >>> CHUNK_BITS];
+            int i = slot & CHUNK_MASK;
+            long p = k.positions.getAcquire(i);
+            if (p != FREE) {
+                visitor.visit(k.carIds[i], (int) (p >> 32), (int) p);
+            }
+        }
+    }
+
+    /**
+     * Como o {@link #forEachCar}, com o slot, a célula ocupada e a célula esperada de cada carro.
+     * Os dois campos são lidos separadamente: um carro que anda durante a varredura pode aparecer com
+     * a posição nova e a espera antiga (quem usa deve confirmar o que viu numa segunda varredura).
+     */
+    public void forEachCarWait(WaitVisitor visitor) {
+        Chunk[] cs = chunks;
+        int n = Math.min(highWater.get(), cs.length << CHUNK_BITS);
+        for (int slot = 0; slot < n; slot++) {
+            Chunk k = cs[slot >>> CHUNK_BITS];
+            int i = slot & CHUNK_MASK;
+            long p = k.positions.getAcquire(i);
+            if (p != FREE) {
+                visitor.visit(slot, k.carIds[i], (int) (p >> 32) * cols + (int) p, k.waitingFor.getAcquire(i));
+            }
+        }
     }
 
 
@@ -0,0 +1,88 @@
+package app.core;
+
+import app.model.enums.Direction;
+import utils.CrossPlanner;
+
+import java.util.SplittableRandom;
+
+/**
+ * Estado de um carro no {@link TickEngine}.
+ *
+ * Diferente de {@link app.model.Car}, não tem thread própria: é um registro passivo que o motor
+ * avança a cada tick em que o carro está "vencido" na {@link TimingWheel}.
+ *
+ * Concorrência:
+ * - Na fase de planejamento, cada carro é tocado por no máximo UM worker (campos de intenção).
+ * - Na fase de aplicação, apenas a thread do motor escreve a posição/estado.
+ */
+final class TickCar {
+
+    /** Intenções calculadas na fase de planejamento. */
+    static final byte INTENT_NONE = 0;
+    /** Sai da malha (chegou ao fim da rota ou próximo passo fora do grid). */
+    static final byte INTENT_EXIT = 1;
+    /** Anda uma célula (mesma via ou troca de via). */
+    static final byte INTENT_MOVE = 2;
+    /** Reserva o caminho inteiro de um cruzamento ({@link #plan}). */
+    static final byte INTENT_CROSS = 3;
+    /** Cruzamento sem rota viável agora: tenta de novo no próximo passo. */
+    static final byte INTENT_WAIT = 4;
+    /** Já está atravessando: avança para a próxima célula reservada do caminho. */
+    static final byte INTENT_ADVANCE = 5;
+
+    final long id;
+    final int endRow;
+    final int endCol;
+    /** Duração de um passo, em ticks (equivale ao {@code stepMs} do {@link app.model.Car}). */
+    final int stepTicks;
+    /** Gerador próprio (semente derivada da semente do motor + id) para decisões reproduzíveis. */
+    final SplittableRandom rnd;
+
+    int row;
+    int col;
+    Direction direction;
+
+    /** Slot no {@link SimulationState} (definido ao entrar na malha). */
+    int slot = -1;
+
+    /** Tick em que o carro deve ser avaliado de novo. */
+    long nextTick;
+
+    /** Células que ainda faltam no trecho reto atual (-1 = consultar o grafo no próximo planejamento). */
+    int edgeLeft = -1;
+
+    // Travessia em andamento: caminho reservado e índice da célula atual (-1 = fora de cruzamento)
+    CrossPlanner.Path crossing;
+    int crossingPos = -1;
+
+    // Intenção (fase de planejamento → fase de aplicação)
+    byte intent = INTENT_NONE;
+    int targetRow;
+    int targetCol;
+    Direction targetDir;
+    CrossPlanner.Path plan;
+
+    TickCar(long id, int row, int col, int endRow, int endCol, Direction direction, int stepTicks, long seed) {
+        this.id = id;
+        this.row = row;
+        this.col = col;
+        this.endRow = endRow;
+        this.endCol = endCol;
+        this.direction = direction;
+        this.stepTicks = stepTicks;
+        this.rnd = new SplittableRandom(seed ^ (id * 0x9E3779B97F4A7C15L));
+    }
+
+    boolean reachedEnd() {
+        return row == endRow && col == endCol;
+    }
+
+    boolean isCrossing() {
+        return crossingPos >= 0;
+    }
+
+    /** Andou uma célula na via: desconta do trecho, ou (troca de via / fora de trecho) consulta de novo. */
+    void steppedOnRoad() {
+        edgeLeft = edgeLeft > 0 ? edgeLeft - 1 : -1;
+    }
+}
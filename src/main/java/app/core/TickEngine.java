@@ -0,0 +1,292 @@
+package app.core;
+
+import app.model.Grid;
+import app.model.RowSegment;
+import utils.CrossPlanner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Motor de simulação em tempo discreto: alternativa ao modelo "uma thread por carro".
+ *
+ * Funcionamento (a cada tick de {@code tickMs}):
+ * 1) Inserção: no máximo um carro a cada {@code minInsertMs}, respeitando o limite de carros ativos.
+ * 2) Drena da {@link TimingWheel} os carros cujo próximo movimento vence neste tick.
+ * 3) Planejamento (paralelo, pool pequeno de workers): cada carro calcula sua intenção
+ *    (andar, trocar de via, reservar um cruzamento via {@link CrossPlanner}, sair).
+ * 4) Aplicação (sequencial, por ordem de id): resolve a exclusão das células numa tabela de ocupação
+ *    do próprio motor — sem {@link CellLockGrid} e sem bloqueio. Quem não conseguiu tenta no próximo tick.
+ *
+ * Determinismo: com a mesma semente e os mesmos parâmetros, a sequência de estados é a mesma
+ * (cada carro tem seu próprio gerador e a aplicação segue sempre a ordem dos ids).
+ *
+ * As regras de movimento são as mesmas do {@link app.model.Car#run()} (ver {@link TickRules}).
+ */
+public class TickEngine extends Thread {
+
+    /** Abaixo disso o planejamento roda na própria thread do motor (não compensa dividir). */
+    private static final int PARALLEL_THRESHOLD = 1024;
+    /** Horizonte da roda de tempo, em ticks. */
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final TickRules rules;
+    private final int rows, cols;
+    private final SimulationState sim;
+    private final long tickNanos;
+    private final int tickMs;
+
+    private final IntSupplier maxCarsSupplier;                            // spnMaxVeiculos::getValue
+    private final IntSupplier minInsertMsSupplier;                        // spnIntervaloMs::getValue
+    private final int minStepMs, maxStepMs;                               // faixa de velocidade dos carros
+    private final Function<RandomGenerator, RowSegment> segmentPicker;   // rota de entrada
+
+    private final long seed;
+    private final SplittableRandom rnd;
+    private final ForkJoinPool workers;
+    private final TimingWheel wheel = new TimingWheel(WHEEL_SLOTS);
+
+    /** Dono de cada célula (id do carro; 0 = livre). Só a thread do motor lê/escreve. */
+    private final long[] occupant;
+
+    private final List<TickCar> due = new ArrayList<>();
+    private long nextCarId = 1;
+    private long tick = 0;
+
+    private volatile boolean inserting = true;
+    private volatile boolean running = true;
+
+    public TickEngine(Grid grid,
+                      SimulationState sim,
+                      int tickMs,
+                      int workerCount,
+                      long seed,
+                      IntSupplier maxCarsSupplier,
+                      IntSupplier minInsertMsSupplier,
+                      int minStepMs,
+                      int maxStepMs,
+                      Function<RandomGenerator, RowSegment> segmentPicker) {
+        this.rules = new TickRules(grid);
+        this.rows = grid.rows;
+        this.cols = grid.cols;
+        this.sim = sim;
+        this.tickMs = Math.max(1, tickMs);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickMs);
+        this.seed = seed;
+        this.rnd = new SplittableRandom(seed);
+        this.workers = new ForkJoinPool(Math.max(1, workerCount));
+        this.maxCarsSupplier = maxCarsSupplier;
+        this.minInsertMsSupplier = minInsertMsSupplier;
+        this.minStepMs = minStepMs;
+        this.maxStepMs = Math.max(minStepMs, maxStepMs);
+        this.segmentPicker = segmentPicker;
+        this.occupant = new long[rows * cols];
+        setName("TickEngine");
+        setDaemon(true);
+    }
+
+    public void stopInserting() {
+        inserting = false;
+    }
+
+    public void resumeInserting() {
+        inserting = true;
+    }
+
+    public void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    private int idOf(int r, int c) { return r * cols + c; }
+
+    @Override
+    public void run() {
+        long lastSpawnTick = Long.MIN_VALUE / 2;
+        long next = System.nanoTime();
+        try {
+            while (running) {
+                // Inserção (no máximo um carro por intervalo mínimo)
+                int minGapTicks = Math.max(1, Math.max(1, minInsertMsSupplier.getAsInt()) / tickMs);
+                if (inserting && tick - lastSpawnTick >= minGapTicks
+                        && sim.activeCount() < Math.max(1, maxCarsSupplier.getAsInt())
+                        && spawn()) {
+                    lastSpawnTick = tick;
+                }
+
+                step();
+                tick++;
+
+                // Mantém o ritmo de um tick por tickMs (se atrasou, emenda os ticks sem dormir)
+                next += tickNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        } catch (InterruptedException ignored) {
+            // encerrando
+        } finally {
+            // [SHUTDOWN] – remove todos os carros do estado
+            due.clear();
+            wheel.drainAll(due);
+            for (TickCar car : due) {
+                sim.onExit(car.slot, false);
+            }
+            due.clear();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Cria um carro na entrada sorteada, se a célula de entrada estiver livre.
+     * @return true se o carro foi inserido
+     */
+    private boolean spawn() {
+        RowSegment seg = segmentPicker.apply(rnd);
+        if (seg == null) return false;
+
+        int cell = idOf(seg.getR0(), seg.getC0());
+        if (occupant[cell] != 0) return false; // entrada ocupada: tenta no próximo tick
+
+        int stepMs = minStepMs + rnd.nextInt(maxStepMs - minStepMs + 1);
+        int stepTicks = Math.max(1, Math.round((float) stepMs / tickMs));
+        TickCar car = new TickCar(nextCarId++, seg.getR0(), seg.getC0(), seg.getR1(), seg.getC1(),
+                seg.getDirection(), stepTicks, seed);
+
+        occupant[cell] = car.id;
+        car.slot = sim.onSpawn(car.id, car.row, car.col);
+        wheel.schedule(car, tick + stepTicks);
+        return true;
+    }
+
+    /** Um tick: drena os vencidos, planeja (em paralelo) e aplica (em ordem de id). */
+    private void step() {
+        due.clear();
+        wheel.drainDue(tick, due);
+        if (due.isEmpty()) return;
+
+        // Fase 1: planejamento
+        if (due.size() < PARALLEL_THRESHOLD) {
+            for (TickCar car : due) rules.plan(car);
+        } else {
+            workers.invoke(new PlanTask(due, 0, due.size()));
+        }
+
+        // Fase 2: aplicação determinística
+        due.sort(Comparator.comparingLong(car -> car.id));
+        for (TickCar car : due) {
+            apply(car);
+        }
+    }
+
+    /** Divide o planejamento dos carros vencidos entre os workers. */
+    private final class PlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<TickCar> cars;
+        private final int from, to;
+
+        PlanTask(List<TickCar> cars, int from, int to) {
+            this.cars = cars; this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) rules.plan(cars.get(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlanTask(cars, from, mid), new PlanTask(cars, mid, to));
+        }
+    }
+
+    /** Aplica a intenção do carro contra a tabela de ocupação e reagenda. */
+    private void apply(TickCar car) {
+        switch (car.intent) {
+            case TickCar.INTENT_EXIT -> {
+                occupant[idOf(car.row, car.col)] = 0;
+                car.intent = TickCar.INTENT_NONE;
+                sim.onExit(car.slot);
+                return; // não reagenda
+            }
+            case TickCar.INTENT_MOVE -> {
+                int target = idOf(car.targetRow, car.targetCol);
+                if (occupant[target] != 0) {
+                    // célula ocupada: mantém a intenção e tenta de novo no próximo tick
+                    sim.onBlocked(car.slot, tickNanos);
+                    wheel.schedule(car, tick + 1);
+                    return;
+                }
+                moveTo(car, car.targetRow, car.targetCol);
+                car.steppedOnRoad();
+                car.direction = car.targetDir;
+                car.intent = TickCar.INTENT_NONE;
+            }
+            case TickCar.INTENT_CROSS -> {
+                List<int[]> cells = car.plan.cells;
+                for (int[] p : cells) {
+                    if (occupant[idOf(p[0], p[1])] != 0) {
+                        // não deu para reservar o caminho inteiro: replaneja depois de um passo
+                        sim.onBlocked(car.slot, car.stepTicks * tickNanos);
+                        car.intent = TickCar.INTENT_NONE;
+                        car.plan = null;
+                        wheel.schedule(car, tick + car.stepTicks);
+                        return;
+                    }
+                }
+                // Reserva todas as células (internas + 1ª fora) e já entra na primeira
+                for (int[] p : cells) occupant[idOf(p[0], p[1])] = car.id;
+                car.crossing = car.plan;
+                car.plan = null;
+                car.crossingPos = -1;
+                car.intent = TickCar.INTENT_NONE;
+                advanceCrossing(car);
+            }
+            case TickCar.INTENT_ADVANCE -> {
+                car.intent = TickCar.INTENT_NONE;
+                advanceCrossing(car);
+            }
+            default -> {
+                // INTENT_WAIT: só espera um passo
+                if (car.intent == TickCar.INTENT_WAIT) sim.onBlocked(car.slot, car.stepTicks * tickNanos);
+                car.intent = TickCar.INTENT_NONE;
+            }
+        }
+        wheel.schedule(car, tick + car.stepTicks);
+    }
+
+    /** Avança uma célula dentro do caminho reservado; ao chegar à célula de saída, adota a direção de saída. */
+    private void advanceCrossing(TickCar car) {
+        int[] step = car.crossing.cells.get(++car.crossingPos);
+        moveTo(car, step[0], step[1]);
+        if (car.crossingPos == car.crossing.cells.size() - 1) {
+            car.direction = car.crossing.exitDir;
+            car.edgeLeft = -1;
+            car.crossing = null;
+            sim.onCrossing(car.slot);
+            car.crossingPos = -1;
+        }
+    }
+
+    /**
+     * Move o carro para (r, c), libera a célula anterior e publica a posição.
+     * A célula de destino já está reservada/ocupada pelo carro ou livre.
+     */
+    private void moveTo(TickCar car, int r, int c) {
+        occupant[idOf(car.row, car.col)] = 0;
+        occupant[idOf(r, c)] = car.id;
+        car.row = r;
+        car.col = c;
+        sim.onMove(car.slot, r, c);
+    }
+}
@@ -0,0 +1,83 @@
+package app.core;
+
+import app.model.Grid;
+import app.model.enums.Direction;
+import app.model.enums.LaneCode;
+import utils.CrossPlanner;
+import utils.RoadGraph;
+
+/**
+ * Regras de movimento dos carros sem thread ({@link TickCar}), as mesmas do {@link app.model.Car#run()}.
+ *
+ * Só lê a malha (nunca a ocupação): pode ser chamada por vários workers ao mesmo tempo, cada um com
+ * seus próprios carros. Usada pelo {@link TickEngine} e pelo {@link RegionTickEngine}.
+ */
+final class TickRules {
+
+    private final Grid grid;
+    private final RoadGraph graph;
+    private final int rows, cols;
+
+    TickRules(Grid grid) {
+        this.grid = grid;
+        this.graph = RoadGraph.forGrid(grid);
+        this.rows = grid.rows;
+        this.cols = grid.cols;
+    }
+
+    private boolean inside(int r, int c) {
+        return r >= 0 && c >= 0 && r < rows && c < cols;
+    }
+
+    /**
+     * Calcula a intenção do carro (não toca na ocupação). Mesmas regras do {@code Car.run()}.
+     * Se o carro ficou bloqueado no tick anterior numa via, a intenção é mantida.
+     */
+    void plan(TickCar car) {
+        if (car.isCrossing()) {
+            car.intent = TickCar.INTENT_ADVANCE;
+            return;
+        }
+        if (car.intent == TickCar.INTENT_MOVE) return; // bloqueado esperando a mesma célula
+
+        if (car.reachedEnd()) {
+            car.intent = TickCar.INTENT_EXIT;
+            return;
+        }
+
+        int nextRow = car.row + car.direction.dirRow;
+        int nextCol = car.col + car.direction.dirCol;
+
+        // Trecho reto: comprimento lido do grafo uma vez ao entrar e descontado a cada passo
+        // (TickCar.steppedOnRoad); só no fim do trecho a próxima célula é classificada
+        if (car.edgeLeft < 0) car.edgeLeft = graph.remainingOnEdge(car.row, car.col, car.direction);
+        int nextCode = car.direction.laneCode.getCodigo();
+        if (car.edgeLeft == 0) {
+            if (!inside(nextRow, nextCol)) {
+                // saiu da malha
+                car.intent = TickCar.INTENT_EXIT;
+                return;
+            }
+            nextCode = grid.get(nextRow, nextCol);
+        }
+        if (nextCode == car.direction.laneCode.getCodigo()) {
+            car.intent = TickCar.INTENT_MOVE;
+            car.targetRow = nextRow;
+            car.targetCol = nextCol;
+            car.targetDir = car.direction;
+        } else if (LaneCode.isOnCrossroad(nextCode)) {
+            CrossPlanner.Path p = CrossPlanner.plan(grid, nextRow, nextCol, car.direction, car.rnd);
+            if (p.isEmpty()) {
+                car.intent = TickCar.INTENT_WAIT;
+            } else {
+                car.intent = TickCar.INTENT_CROSS;
+                car.plan = p;
+            }
+        } else {
+            car.intent = TickCar.INTENT_MOVE;
+            car.targetRow = nextRow;
+            car.targetCol = nextCol;
+            car.targetDir = Direction.getDirectionFromLaneCode(nextCode);
+        }
+    }
+}
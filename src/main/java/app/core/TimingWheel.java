@@ -0,0 +1,72 @@
+package app.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roda de tempo (timing wheel) simples indexada pelo tick do próximo movimento de cada carro.
+ *
+ * - {@code size} baldes (potência de 2); o carro com vencimento {@code t} vai para o balde {@code t & mask}.
+ * - Vencimentos além de uma volta ficam no mesmo balde e são ignorados até o tick certo chegar.
+ * - Agendar e drenar custam O(1) amortizado por carro: não há fila de prioridade nem ordenação global.
+ *
+ * Não é thread-safe: usada apenas pela thread que conduz os ticks.
+ */
+final class TimingWheel {
+
+    private final ArrayList<TickCar>[] buckets;
+    private final int mask;
+    private int size;
+
+    TimingWheel(int minSlots) {
+        int slots = Integer.highestOneBit(Math.max(2, minSlots - 1)) << 1;
+        this.buckets = newBuckets(slots);
+        for (int i = 0; i < slots; i++) buckets[i] = new ArrayList<>();
+        this.mask = slots - 1;
+    }
+
+    /** Array genérico de baldes (Java não cria {@code new ArrayList<TickCar>[n]} diretamente). */
+    @SuppressWarnings("unchecked")
+    private static ArrayList<TickCar>[] newBuckets(int slots) {
+        return (ArrayList<TickCar>[]) new ArrayList<?>[slots];
+    }
+
+    /** Agenda o carro para o tick {@code dueTick}. */
+    void schedule(TickCar car, long dueTick) {
+        car.nextTick = dueTick;
+        buckets[(int) (dueTick & mask)].add(car);
+        size++;
+    }
+
+    /**
+     * Move para {@code out} todos os carros vencidos no tick informado.
+     * Os que pertencem a voltas futuras permanecem no balde (compactação in-place).
+     */
+    void drainDue(long tick, List<TickCar> out) {
+        ArrayList<TickCar> bucket = buckets[(int) (tick & mask)];
+        int keep = 0;
+        for (int i = 0, n = bucket.size(); i < n; i++) {
+            TickCar car = bucket.get(i);
+            if (car.nextTick <= tick) {
+                out.add(car);
+            } else {
+                bucket.set(keep++, car);
+            }
+        }
+        size -= bucket.size() - keep;
+        bucket.subList(keep, bucket.size()).clear();
+    }
+
+    /** Remove e devolve todos os carros agendados (usado no encerramento). */
+    void drainAll(List<TickCar> out) {
+        for (ArrayList<TickCar> bucket : buckets) {
+            out.addAll(bucket);
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+package app.core;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatísticas das viagens concluídas, alimentadas pelo {@link SimulationState#onExit}.
+ *
+ * - Tempo de viagem (entrada → saída) e tempo bloqueado por viagem, em {@link LatencyHistogram}s.
+ * - Células percorridas e cruzamentos atravessados (totais, para médias por viagem).
+ * - Vazão em janela móvel: carros que saíram por segundo nos últimos N segundos completos.
+ *
+ * Tudo sem lock: quem registra é a thread do carro que está saindo.
+ * Viagens interrompidas (simulação encerrada no meio) só entram em {@link #aborted()}.
+ */
+public final class TravelStats {
+
+    /** Segundos guardados para a vazão móvel. */
+    public static final int RATE_WINDOW_SECONDS = 60;
+    private static final int RATE_SLOTS = 64; // potência de 2 > janela
+    /** Cada slot: segundo (bits altos) | saídas naquele segundo ({@value #COUNT_BITS} bits baixos). */
+    private static final int COUNT_BITS = 24;
+
+    private final LatencyHistogram travelTime = new LatencyHistogram();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder crossings = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+
+    private final long origin = System.nanoTime();
+    private final AtomicLongArray perSecond = new AtomicLongArray(RATE_SLOTS);
+
+    /** Registra uma viagem concluída. */
+    void record(long travelNanos, long blockedNanos, int cellsTraveled, int crossingsTaken) {
+        travelTime.record(travelNanos);
+        waitTime.record(blockedNanos);
+        cells.add(cellsTraveled);
+        crossings.add(crossingsTaken);
+        markExit(System.nanoTime());
+    }
+
+    void recordAborted() {
+        aborted.increment();
+    }
+
+    private long secondOf(long nanos) {
+        return (nanos - origin) / 1_000_000_000L;
+    }
+
+    private void markExit(long now) {
+        long sec = secondOf(now);
+        int slot = (int) (sec & (RATE_SLOTS - 1));
+        while (true) {
+            long old = perSecond.get(slot);
+            // slot de outro segundo (de uma volta anterior): recomeça a contagem
+            long next = (old >>> COUNT_BITS) == sec ? old + 1 : (sec << COUNT_BITS) | 1;
+            if (perSecond.compareAndSet(slot, old, next)) return;
+        }
+    }
+
+    /**
+     * Média de saídas por segundo nos últimos {@code seconds} segundos COMPLETOS (o atual não conta).
+     * @param seconds de 1 a {@link #RATE_WINDOW_SECONDS}
+     */
+    public double throughput(int seconds) {
+        int n = Math.max(1, Math.min(RATE_WINDOW_SECONDS, seconds));
+        long now = secondOf(System.nanoTime());
+        long total = 0;
+        for (long sec = now - n; sec < now; sec++) {
+            if (sec < 0) continue;
+            long v = perSecond.get((int) (sec & (RATE_SLOTS - 1)));
+            if ((v >>> COUNT_BITS) == sec) total += v & ((1L << COUNT_BITS) - 1);
+        }
+        return (double) total / n;
+    }
+
+    public LatencyHistogram travelTime() {
+        return travelTime;
+    }
+
+    public LatencyHistogram waitTime() {
+        return waitTime;
+    }
+
+    /** Viagens concluídas. */
+    public long trips() {
+        return travelTime.count();
+    }
+
+    /** Viagens interrompidas pelo encerramento da simulação. */
+    public long aborted() {
+        return aborted.sum();
+    }
+
+    public double meanCells() {
+        long n = trips();
+        return n == 0 ? 0.0 : (double) cells.sum() / n;
+    }
+
+    public double meanCrossings() {
+        long n = trips();
+        return n == 0 ? 0.0 : (double) crossings.sum() / n;
+    }
+
+    /** Zera tudo (ex.: ao trocar o mecanismo de locks, para comparar só a execução nova). */
+    public void reset() {
+        travelTime.reset();
+        waitTime.reset();
+        cells.reset();
+        crossings.reset();
+        aborted.reset();
+        for (int i = 0; i < RATE_SLOTS; i++) perSecond.set(i, 0L);
+    }
+
+    /** Resumo de uma linha (tempos em ms), ex.: para log ou barra de status. */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "viagens=%d viagem p50=%.0fms p99=%.0fms max=%.0fms | bloqueado p50=%.0fms p99=%.0fms max=%.0fms"
+                        + " | células/viagem=%.1f cruzamentos/viagem=%.2f | vazão(10s)=%.2f/s",
+                trips(),
+                ms(travelTime.percentile(50)), ms(travelTime.percentile(99)), ms(travelTime.max()),
+                ms(waitTime.percentile(50)), ms(waitTime.percentile(99)), ms(waitTime.max()),
+                meanCells(), meanCrossings(), throughput(10));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -1,19 +1,39 @@
 package app.model;
 
 import app.core.CellLockGrid;
-import app.core.CellLockGridSemaphore;
+import app.core.IntersectionManager;
+import app.core.RetryPolicy;
 import app.model.enums.Direction;
 import app.core.SimulationState;
 import app.model.enums.LaneCode;
-import utils.CrossPlanner;
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class Car extends Thread {
+import utils.CrossPlanTable;
+import utils.RoadGraph;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Lógica de um carro (agente) da simulação.
+ *
+ * O carro é um {@link Runnable}: quem decide em que thread ele roda é o {@link java.util.concurrent.Executor}
+ * informado ao {@code InserterThread} (thread de plataforma, thread virtual ou um pool qualquer).
+ */
+public class Car implements Runnable {
+    /** Sequência global de ids (substitui o {@code Thread.getId()} de quando o carro era uma thread). */
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id = NEXT_ID.getAndIncrement();
     private final SimulationState simState;
     private final CellLockGrid locks;
-    private final int[][] grid;
+    private final Grid grid;
+    private final RoadGraph graph;
+    private final CrossPlanTable plans;
+    /** Um gerente de reservas por cruzamento (índice = {@code plans.crossingOf(plano)}). */
+    private final IntersectionManager[] intersections;
+    /** Prazos e novas tentativas nos cruzamentos (compartilhada por todos os carros da malha). */
+    private final RetryPolicy retry;
     private final int stepMs;
 
     private int row;
@@ -23,35 +43,61 @@ public class Car extends Thread {
 
     private Direction direction;
 
+    /** Slot do carro no {@link SimulationState} (-1 enquanto não entrou na malha; >= 0 = segura a célula atual). */
+    private int slot = -1;
+
     private volatile boolean running = true;
 
+    /** Thread que está executando o carro (definida no início do run) — usada para interromper. */
+    private volatile Thread runner;
+
+    /** Avisado ao fim do run, com ou sem viagem (ex.: o inserter tira o carro da lista de vivos); pode ser null. */
+    private final Consumer<Car> onDone;
+
     public Car(SimulationState simState,
-               int[][] grid,
+               Grid grid,
                CellLockGrid locks,
+               IntersectionManager[] intersections,
+               RetryPolicy retry,
                int row,
                int startCol,
                int endRow,
                int endCol,
                int stepMs,
-               Direction dir) {
+               Direction dir,
+               boolean entryHeld,
+               Consumer<Car> onDone) {
         this.simState = simState;
         this.grid = grid;
+        this.graph = RoadGraph.forGrid(grid);
+        this.plans = CrossPlanTable.forGrid(grid);
         this.locks = locks;
+        this.intersections = intersections;
+        this.retry = retry;
         this.row = row;
         this.col = startCol;
         this.endRow = endRow;
         this.endCol = endCol;
         this.stepMs = stepMs;
         this.direction = dir;
-        setName("RelampagoMarquinhos-" + getId());
+        this.onDone = onDone;
+        // Célula de entrada já reservada por quem criou o carro (controle de admissão do inserter):
+        // o carro já conta como ativo antes mesmo de começar a rodar
+        if (entryHeld) {
+            this.slot = simState.onSpawn(id, row, startCol);
+        }
+    }
 
-        // A thread pode ser interrompida junto com a aplicação
-        setDaemon(true);
+    public long getId() {
+        return id;
     }
 
     public void requestStop() {
         running = false;
-        interrupt();
+        Thread t = runner;
+        if (t != null) {
+            t.interrupt();
+        }
     }
 
     private boolean reachedEnd() {
@@ -60,11 +106,27 @@ public class Car extends Thread {
 
     @Override
     public void run() {
+        runner = Thread.currentThread();
+        // Parada pedida antes do carro começar a rodar (sem célula reservada: nada a desfazer)
+        if (!running && slot < 0) {
+            runner = null;
+            if (onDone != null) onDone.accept(this);
+            return;
+        }
+        // Viagem concluída (saiu da malha ou chegou ao fim) — e não interrompida pelo encerramento
+        boolean finished = false;
+        // Tentativas seguidas que falharam no cruzamento à frente e o último caminho sorteado
+        int failures = 0;
+        int lastPlan = -1;
+        // Células que ainda faltam no trecho reto atual (-1 = consultar o grafo no próximo passo)
+        int edgeLeft = -1;
         try {
-            // Bloqueia a célula inicial para garantir exclusão mútua desde o spawn
-            locks.acquire(row, col);
-            // Registra o carro no estado para saber cor, posição, etc
-            simState.onSpawn(getId(), row, col);
+            if (slot < 0) {
+                // Bloqueia a célula inicial para garantir exclusão mútua desde o spawn
+                locks.acquire(row, col);
+                // Registra o carro no estado para saber cor, posição, etc
+                slot = simState.onSpawn(getId(), row, col);
+            }
 
             // [LOOP PRINCIPAL] – executa enquanto a thread estiver ativa e a rota não terminou
             while (running && !reachedEnd()) {
@@ -72,20 +134,29 @@ public class Car extends Thread {
                 int nextRow = row + direction.dirRow;
                 int nextCol = col + direction.dirCol;
 
-                // Continua dentro da malha?
-                if (nextRow < 0 || nextCol < 0 || nextRow >= grid.length || nextCol >= grid[0].length) {
-                    // saiu da malha
-                    break;
-                }
-
-                // Armazena o código da próxima célula do grid
-                int nextCode = grid[nextRow][nextCol];
+                // Trecho reto: o comprimento restante vem do grafo UMA vez, ao entrar no trecho, e é
+                // descontado a cada passo; só no fim do trecho a próxima célula é lida e classificada
+                if (edgeLeft < 0) edgeLeft = graph.remainingOnEdge(row, col, direction);
+                boolean stillGoingSameWay = edgeLeft > 0;
+                int nextCode = direction.laneCode.getCodigo();
+                if (!stillGoingSameWay) {
+                    // Continua dentro da malha?
+                    if (!grid.inside(nextRow, nextCol)) {
+                        // saiu da malha
+                        break;
+                    }
 
-                boolean stillGoingSameWay = nextCode == direction.laneCode.getCodigo();
+                    // Armazena o código da próxima célula do grid
+                    nextCode = grid.get(nextRow, nextCol);
+                    stillGoingSameWay = nextCode == direction.laneCode.getCodigo();
+                }
                 // Se a próxima célula pertence ao mesmo “tipo de via” na direção atual
                 if (stillGoingSameWay) {
                     // Continua na mesma direção: adquire próximo, atualiza posição, libera a anterior
+                    long waitStart = System.nanoTime();
+                    simState.onWaiting(slot, nextRow, nextCol); // visível ao watchdog de travamentos
                     locks.acquire(nextRow, nextCol);
+                    simState.onBlocked(slot, System.nanoTime() - waitStart);
                     int previousRow = row;
                     int previousCol = col;
 
@@ -93,7 +164,8 @@ public class Car extends Thread {
                     col = nextCol;
 
                     // Notifica a UI/estado para redesenho com a nova posição
-                    simState.onMove(getId(), row, col);
+                    simState.onMove(slot, row, col);
+                    edgeLeft = edgeLeft > 0 ? edgeLeft - 1 : -1;
 
                     // Libera a célula que ficou para trás
                     locks.release(previousRow, previousCol);
@@ -106,28 +178,66 @@ public class Car extends Thread {
                     //      - escolhe saída antes de entrar
                     //      - aplica regras de pares proibidos
                     //      - inclui a 1ª célula fora (evita “parar em cima” do cruzamento)
-                    var plan = CrossPlanner.plan(grid, nextRow, nextCol, direction);
-
-                    if (plan.isEmpty()) {
+                    //      Os planos vêm pré-calculados da tabela da malha: aqui só sorteamos um índice.
+                    //      Depois de muitas falhas seguidas a política pode mandar insistir no mesmo caminho.
+                    int plan = (lastPlan >= 0 && failures >= retry.replanLimit())
+                            ? lastPlan
+                            : plans.pick(nextRow, nextCol, direction, ThreadLocalRandom.current());
+
+                    // Daqui até reservar o caminho o carro está parado esperando (entra nas estatísticas)
+                    long waitStart = System.nanoTime();
+                    if (plan < 0) {
                         // Sem rota viável agora — reavaliar no próximo ciclo
-                        Thread.sleep(Math.max(1, stepMs));
+                        Thread.sleep(retry.backoffMs(++failures, stepMs));
+                        simState.onBlocked(slot, System.nanoTime() - waitStart);
+                        continue;
+                    }
+                    lastPlan = plan;
+
+                    // Células do caminho na ordem de travessia e já ordenadas por id (para o acquireAll)
+                    int[] path = plans.pathIds();
+                    int from = plans.planFrom(plan);
+                    int len = plans.planLength(plan);
+
+                    // 2) Pede a vez ao gerente do cruzamento (fila FIFO; caminhos sem conflito passam juntos)
+                    int crossingIdx = plans.crossingOf(plan);
+                    IntersectionManager crossing = intersections[crossingIdx];
+                    int granted = plans.internalMask(plan);
+                    // Um único prazo para as duas etapas (vez no gerente + células do caminho)
+                    long timeout = retry.timeoutMs(crossingIdx, stepMs);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout));
+                    if (!crossing.acquire(granted, timeout)) {
+                        // Não foi atendido no prazo — replaneja depois
+                        Thread.sleep(retry.backoffMs(++failures, stepMs));
+                        simState.onBlocked(slot, System.nanoTime() - waitStart);
                         continue;
                     }
 
-                    // Faz uma cópia: acquireAll pode ordenar a lista para prevenir deadlocks
-                    List<int[]> path = new ArrayList<>(plan.cells);
-
-                    // 2) Tenta reservar todas as células do caminho (cruzamento + 1 após a saída)
-                    //    não inclui a célula atual pois ela já está travada
-                    long timeout = 200; //@todo parametrizar via UI
-                    if (!locks.acquireAll(new ArrayList<>(plan.cells), timeout)) {
+                    // 2.2) Reserva todas as células do caminho (cruzamento + 1 após a saída)
+                    //      não inclui a célula atual pois ela já está travada.
+                    //      As internas já foram liberadas pelo gerente: na prática só a saída disputa com a via.
+                    //      Só o que sobrou do prazo (0 = uma tentativa sem esperar).
+                    long leftMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                    boolean reserved = false;
+                    try {
+                        reserved = locks.acquireAll(plans.lockIds(), from, len, leftMs);
+                    } finally {
+                        if (!reserved) crossing.release(granted);
+                    }
+                    if (!reserved) {
                         // Não conseguiu reservar agora — tenta depois
-                        Thread.sleep(Math.max(1, stepMs));
+                        Thread.sleep(retry.backoffMs(++failures, stepMs));
+                        simState.onBlocked(slot, System.nanoTime() - waitStart);
                         continue;
                     }
+                    long reservedAt = System.nanoTime();
+                    simState.onBlocked(slot, reservedAt - waitStart);
+                    failures = 0;
+                    lastPlan = -1;
 
                     // Índice da última célula efetivamente ocupada do 'path' (para rollback seguro)
                     int progressed = -1;
+                    byte[] bits = plans.pathBits();
 
                     // Guarda a célula ocupada no momento (será liberada a cada avanço).
                     int prevR = row;
@@ -138,18 +248,21 @@ public class Car extends Thread {
                         // 2.3) Travessia do cruzamento:
                         //      anda célula-a-célula liberando sempre a anterior, mantendo
                         //      reservadas as futuras (garantindo que não bloqueia o cruzamento)
-                        for (int i = 0; i < path.size(); i++) {
-                            int[] step = path.get(i);
-                            int tr = step[0], tc = step[1];
+                        for (int i = 0; i < len; i++) {
+                            int step = path[from + i];
 
-                            row = tr;
-                            col = tc;
+                            row = plans.rowOf(step);
+                            col = plans.colOf(step);
 
                             // Atualiza posição para renderização
-                            simState.onMove(getId(), row, col);
+                            simState.onMove(slot, row, col);
 
-                            // Libera só a célula anterior
+                            // Libera só a célula anterior (e devolve ao gerente, se era interna)
                             locks.release(prevR, prevC);
+                            if (i > 0) {
+                                crossing.release(bits[from + i - 1]);
+                                granted &= ~bits[from + i - 1];
+                            }
 
                             prevR = row;
                             prevC = col;
@@ -160,7 +273,10 @@ public class Car extends Thread {
 
                         // 2.4) Ao concluir o trajeto interno, o carro já está fora do cruzamento:
                         //      atualiza a direção para a direção de saída planejada.
-                        direction = plan.exitDir;
+                        direction = plans.exitDir(plan);
+                        edgeLeft = -1;
+                        simState.onCrossing(slot);
+                        retry.onCrossed(crossingIdx, System.nanoTime() - reservedAt);
 
                         // Observação: prevR e prevC continuam bloqueados (célula atual)
                         // Ela permanece sob posse deste carro até a próxima iteração do loop, quando outro passo for decidido
@@ -168,15 +284,20 @@ public class Car extends Thread {
                         // 2.5) Limpeza defensiva:
                         // Se houve interrupção/exceção dentro do for, libera SOMENTE as células
                         // futuras ainda reservadas e não utilizadas. Evita “over-release”.
-                        for (int i = progressed + 1; i < path.size(); i++) {
-                            int[] p = path.get(i);
-                            locks.release(p[0], p[1]);
+                        for (int i = progressed + 1; i < len; i++) {
+                            int p = path[from + i];
+                            locks.release(plans.rowOf(p), plans.colOf(p));
                         }
+                        // Devolve ao gerente as células internas que ainda constam como concedidas
+                        crossing.release(granted);
                     }
 
                 }  else {
                     // Continua na mesma direção: adquire próximo, atualiza posição, libera a anterior
+                    long waitStart = System.nanoTime();
+                    simState.onWaiting(slot, nextRow, nextCol); // visível ao watchdog de travamentos
                     locks.acquire(nextRow, nextCol);
+                    simState.onBlocked(slot, System.nanoTime() - waitStart);
                     int previousRow = row;
                     int previousCol = col;
 
@@ -184,10 +305,11 @@ public class Car extends Thread {
                     col = nextCol;
 
                     // Notifica a UI/estado para redesenho com a nova posição
-                    simState.onMove(getId(), row, col);
+                    simState.onMove(slot, row, col);
 
 
                     direction = Direction.getDirectionFromLaneCode(nextCode);
+                    edgeLeft = -1;
 
                     // Libera a célula que ficou para trás
                     locks.release(previousRow, previousCol);
@@ -196,14 +318,22 @@ public class Car extends Thread {
                 }
 
             }
+            finished = running;
         } catch (InterruptedException ignored) {
             // encerrando
         } finally {
-            // [SHUTDOWN] – Libera a célula atual e remove do estado
-            try {
-                locks.release(row, col);
-            } catch (Exception ignored) {}
-            simState.onExit(getId());
+            // [SHUTDOWN] – Libera a célula atual e remove do estado (só se chegou a ocupá-la)
+            if (slot >= 0) {
+                try {
+                    locks.release(row, col);
+                } catch (Exception ignored) {}
+                simState.onExit(slot, finished);
+            }
+
+            // Não deixa uma interrupção "vazar" para a thread de um pool que será reaproveitada
+            runner = null;
+            Thread.interrupted();
+            if (onDone != null) onDone.accept(this);
         }
     }
 
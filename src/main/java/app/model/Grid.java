@@ -0,0 +1,116 @@
+package app.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Malha da simulação: um byte por célula num único buffer "achatado", indexado por
+ * {@code cellId = r * cols + c} (todos os códigos de {@link app.model.enums.LaneCode} cabem em 0..12).
+ *
+ * Substitui o {@code int[][]}: 1 byte por célula em vez de 4, nenhum objeto por linha e uma única
+ * indireção por consulta — o que importa no laço dos carros e em malhas grandes.
+ *
+ * O buffer pode ser um {@code byte[]} no heap ({@link #of(int[][])}) ou uma visão sobre o arquivo
+ * mapeado da malha binária ({@link #wrap}, ver {@code utils.MeshBinary}), sem cópia.
+ *
+ * Imutável depois de criada: pode ser lida por qualquer thread. A identidade do objeto identifica a
+ * malha nos caches por malha ({@code RoadGraph.forGrid}, {@code CrossPlanTable.forGrid} etc.).
+ */
+public final class Grid {
+
+    public final int rows, cols;
+    private final ByteBuffer cells;
+
+    private Grid(int rows, int cols, ByteBuffer cells) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+    }
+
+    /**
+     * Copia uma matriz (ex.: a lida pelo {@code MatrixParser}).
+     * @throws IllegalArgumentException se vazia, não retangular ou com código fora de 0..255
+     */
+    public static Grid of(int[][] matrix) {
+        if (matrix == null || matrix.length == 0 || matrix[0].length == 0) {
+            throw new IllegalArgumentException("Malha vazia.");
+        }
+        int rows = matrix.length, cols = matrix[0].length;
+        byte[] data = new byte[Math.multiplyExact(rows, cols)];
+        for (int r = 0; r < rows; r++) {
+            if (matrix[r].length != cols) {
+                throw new IllegalArgumentException("Linha " + (r + 1) + " com " + matrix[r].length + " colunas; esperado " + cols + ".");
+            }
+            for (int c = 0; c < cols; c++) {
+                int code = matrix[r][c];
+                if (code < 0 || code > 0xFF) {
+                    throw new IllegalArgumentException(String.format(
+                            "Código %d na linha %d, coluna %d não cabe em um byte.", code, r + 1, c + 1));
+                }
+                data[r * cols + c] = (byte) code;
+            }
+        }
+        return new Grid(rows, cols, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Usa os bytes informados (posição 0 = primeira célula) sem copiar.
+     * Quem chama não deve mais alterar o buffer.
+     */
+    public static Grid wrap(ByteBuffer cells, int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Linhas e colunas devem ser > 0. Lidas: " + rows + "x" + cols);
+        }
+        if (cells.capacity() != (long) rows * cols) {
+            throw new IllegalArgumentException("Buffer com " + cells.capacity() + " bytes para " + rows + "x" + cols + ".");
+        }
+        return new Grid(rows, cols, cells.asReadOnlyBuffer());
+    }
+
+    /** Código da célula (r, c). */
+    public int get(int r, int c) {
+        if (r < 0 || c < 0 || r >= rows || c >= cols) {
+            throw new IndexOutOfBoundsException("Célula fora da malha: (" + r + ", " + c + ") em " + rows + "x" + cols);
+        }
+        return cells.get(r * cols + c) & 0xFF;
+    }
+
+    /** Código da célula pelo id ({@code r * cols + c}). */
+    public int get(int cellId) {
+        return cells.get(cellId) & 0xFF; // o próprio buffer confere os limites
+    }
+
+    public boolean inside(int r, int c) {
+        return r >= 0 && c >= 0 && r < rows && c < cols;
+    }
+
+    public int idOf(int r, int c) {
+        return r * cols + c;
+    }
+
+    public int rowOf(int cellId) {
+        return cellId / cols;
+    }
+
+    public int colOf(int cellId) {
+        return cellId % cols;
+    }
+
+    /** Quantidade de células. */
+    public int size() {
+        return rows * cols;
+    }
+
+    /** Visão somente leitura dos bytes das células (ex.: para gravar a malha binária). */
+    public ByteBuffer cells() {
+        return cells.duplicate().clear();
+    }
+
+    /** Cópia no formato antigo (para quem ainda precisa de {@code int[][]}). */
+    public int[][] toArray() {
+        int[][] matrix = new int[rows][cols];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+                matrix[r][c] = cells.get(r * cols + c) & 0xFF;
+        return matrix;
+    }
+}
@@ -2,10 +2,9 @@ package app.model;
 
 import app.Main;
 import app.model.enums.Direction;
-import app.model.enums.LaneCode;
 
-import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public final class RowSegment {
     // Referencias de início e fim de um segmento (INCLUSIVOS)
@@ -24,105 +23,23 @@ public final class RowSegment {
         this.direction = direction;
     }
 
-    private static boolean isLaneForwardOrX(int code, Direction direction) {
-        return code == direction.laneCode.getCodigo() || LaneCode.isOnCrossroad(code);
-    }
-
-    private static int[] step(int r, int c, Direction d) {
-        return new int[]{ r + d.dirRow, c + d.dirCol };
-    }
-
-    private static boolean inBounds(int r, int c, int[][] g) {
-        return r >= 0 && c >= 0 && r < g.length && c < g[0].length;
-    }
-
     /**
-     * Encontra TODOS os segmentos retos válidos que começam em QUALQUER BORDA
-     * na direção de entrada correspondente, e retorna UM aleatório.
+     * Sorteia UM segmento reto válido que começa em QUALQUER BORDA
+     * na direção de entrada correspondente.
+     *
+     * As entradas vêm do {@link SpawnIndex} da malha atual, construído uma única vez
+     * (e reconstruído automaticamente se outra malha for carregada).
      */
     public static RowSegment findRandomEdgeSegment() {
-        int[][] g = Main.gridRef;
-        int rows = g.length, cols = g[0].length;
-        List<RowSegment> candidates = new ArrayList<>();
-
-        // ---- Borda superior: entrada "para baixo" (DOWN) ----
-        {
-            Direction d = Direction.DOWN;
-            int r = 0;
-            for (int c = 0; c < cols; c++) {
-                if (isLaneForwardOrX(g[r][c], d)) {
-                    // expande até onde dá
-                    int rr = r, cc = c;
-                    while (inBounds(rr, cc, g) && isLaneForwardOrX(g[rr][cc], d)) {
-                        int[] nx = step(rr, cc, d);
-                        rr = nx[0]; cc = nx[1];
-                    }
-                    // último válido é um passo antes
-                    int[] back = new int[]{ rr - d.dirRow, cc - d.dirCol };
-                    candidates.add(new RowSegment(r, c, back[0], back[1], d));
-                }
-            }
-        }
-
-        // ---- Borda inferior: entrada "para cima" (UP) ----
-        {
-            Direction d = Direction.UP;
-            int r = rows - 1;
-            for (int c = 0; c < cols; c++) {
-                if (isLaneForwardOrX(g[r][c], d)) {
-                    int rr = r, cc = c;
-                    while (inBounds(rr, cc, g) && isLaneForwardOrX(g[rr][cc], d)) {
-                        int[] nx = step(rr, cc, d);
-                        rr = nx[0]; cc = nx[1];
-                    }
-                    int[] back = new int[]{ rr - d.dirRow, cc - d.dirCol };
-                    candidates.add(new RowSegment(r, c, back[0], back[1], d));
-                }
-            }
-        }
-
-        // ---- Borda esquerda: entrada "para direita" (RIGHT) ----
-        {
-            Direction d = Direction.RIGHT;
-            int c = 0;
-            for (int r = 0; r < rows; r++) {
-                if (isLaneForwardOrX(g[r][c], d)) {
-                    int rr = r, cc = c;
-                    while (inBounds(rr, cc, g) && isLaneForwardOrX(g[rr][cc], d)) {
-                        int[] nx = step(rr, cc, d);
-                        rr = nx[0]; cc = nx[1];
-                    }
-                    int[] back = new int[]{ rr - d.dirRow, cc - d.dirCol };
-                    candidates.add(new RowSegment(r, c, back[0], back[1], d));
-                }
-            }
-        }
-
-        // ---- Borda direita: entrada "para esquerda" (LEFT) ----
-        {
-            Direction d = Direction.LEFT;
-            int c = cols - 1;
-            for (int r = 0; r < rows; r++) {
-                if (isLaneForwardOrX(g[r][c], d)) {
-                    int rr = r, cc = c;
-                    while (inBounds(rr, cc, g) && isLaneForwardOrX(g[rr][cc], d)) {
-                        int[] nx = step(rr, cc, d);
-                        rr = nx[0]; cc = nx[1];
-                    }
-                    int[] back = new int[]{ rr - d.dirRow, cc - d.dirCol };
-                    candidates.add(new RowSegment(r, c, back[0], back[1], d));
-                }
-            }
-        }
-
-        if (candidates.isEmpty()){
-            return null;
-        }
+        return findRandomEdgeSegment(ThreadLocalRandom.current());
+    }
 
-        return candidates.get(
-            //todo add explicação no slide
-            ThreadLocalRandom.current().nextInt(candidates.size())
-        );
+    /**
+     * Igual a {@link #findRandomEdgeSegment()}, com a fonte de aleatoriedade explícita
+     * (usado pelo {@code TickEngine} para simulações reproduzíveis).
+     */
+    public static RowSegment findRandomEdgeSegment(RandomGenerator rnd) {
+        return SpawnIndex.forGrid(Main.gridRef).sample(rnd);
     }
 
     public int getR0() {
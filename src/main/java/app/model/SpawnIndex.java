@@ -0,0 +1,172 @@
+package app.model;
+
+import app.model.enums.Direction;
+import app.model.enums.LaneCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Índice imutável dos pontos de entrada (segmentos de borda) de uma malha.
+ *
+ * - É construído UMA vez por malha: varre as quatro bordas e expande cada via até o fim
+ *   (mesma regra que o {@link RowSegment#findRandomEdgeSegment()} aplicava a cada inserção).
+ * - O sorteio é O(1) e não aloca: os {@link RowSegment} já estão prontos e a amostragem
+ *   ponderada usa o método do alias (Vose).
+ *
+ * Concorrência: depois de construído nada muda, então pode ser lido por qualquer thread.
+ */
+public final class SpawnIndex {
+
+    /** Último índice construído e a malha à qual ele pertence (reconstruído se a malha mudar). */
+    private static volatile SpawnIndex cached;
+
+    private final Grid grid;
+    private final RowSegment[] segments;
+    /** Tabelas do método do alias: probabilidade de ficar na coluna i, senão vai para alias[i]. */
+    private final double[] prob;
+    private final int[] alias;
+
+    private SpawnIndex(Grid grid, RowSegment[] segments, double[] prob, int[] alias) {
+        this.grid = grid;
+        this.segments = segments;
+        this.prob = prob;
+        this.alias = alias;
+    }
+
+    /**
+     * Índice da malha informada, reaproveitando o último construído se for a mesma malha.
+     * Carregar outra malha (outro objeto {@link Grid}) invalida o cache automaticamente.
+     */
+    public static SpawnIndex forGrid(Grid grid) {
+        SpawnIndex idx = cached;
+        if (idx == null || idx.grid != grid) {
+            idx = build(grid);
+            cached = idx;
+        }
+        return idx;
+    }
+
+    /** Constrói o índice com peso igual para todas as entradas. */
+    public static SpawnIndex build(Grid grid) {
+        return build(grid, seg -> 1.0);
+    }
+
+    /**
+     * Constrói o índice com um peso por ponto de entrada.
+     * @param weight peso (>= 0) de cada segmento; entradas com peso 0 nunca são sorteadas
+     */
+    public static SpawnIndex build(Grid grid, ToDoubleFunction<RowSegment> weight) {
+        List<RowSegment> found = scanEdges(grid);
+        RowSegment[] segs = found.toArray(new RowSegment[0]);
+        int n = segs.length;
+
+        double[] w = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            w[i] = weight.applyAsDouble(segs[i]);
+            if (w[i] < 0 || Double.isNaN(w[i])) {
+                throw new IllegalArgumentException("Peso inválido para a entrada " + i + ": " + w[i]);
+            }
+            total += w[i];
+        }
+        if (n > 0 && total <= 0) {
+            throw new IllegalArgumentException("Ao menos uma entrada precisa ter peso > 0.");
+        }
+
+        double[] prob = new double[n];
+        int[] alias = new int[n];
+        buildAlias(w, total, prob, alias);
+        return new SpawnIndex(grid, segs, prob, alias);
+    }
+
+    /**
+     * Sorteia um ponto de entrada (respeitando os pesos) sem alocar nada.
+     * @return segmento sorteado ou null se a malha não tem entradas
+     */
+    public RowSegment sample(RandomGenerator rnd) {
+        int n = segments.length;
+        if (n == 0) return null;
+        int i = rnd.nextInt(n);
+        return rnd.nextDouble() < prob[i] ? segments[i] : segments[alias[i]];
+    }
+
+    public int size() {
+        return segments.length;
+    }
+
+    public RowSegment get(int i) {
+        return segments[i];
+    }
+
+    /**
+     * Método do alias de Vose: divide o total em n colunas de altura 1, cada uma com
+     * no máximo duas entradas (i e alias[i]).
+     */
+    private static void buildAlias(double[] w, double total, double[] prob, int[] alias) {
+        int n = w.length;
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int ns = 0, nl = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = w[i] * n / total;
+            if (scaled[i] < 1.0) small[ns++] = i; else large[nl++] = i;
+        }
+        while (ns > 0 && nl > 0) {
+            int s = small[--ns];
+            int l = large[--nl];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[ns++] = l; else large[nl++] = l;
+        }
+        // O que sobrar (por arredondamento) fica com probabilidade 1
+        while (nl > 0) { int l = large[--nl]; prob[l] = 1.0; alias[l] = l; }
+        while (ns > 0) { int s = small[--ns]; prob[s] = 1.0; alias[s] = s; }
+    }
+
+    /* ===================== VARREDURA DAS BORDAS ===================== */
+
+    private static boolean isLaneForwardOrX(int code, Direction direction) {
+        return code == direction.laneCode.getCodigo() || LaneCode.isOnCrossroad(code);
+    }
+
+    private static boolean inBounds(int r, int c, Grid g) {
+        return g.inside(r, c);
+    }
+
+    /**
+     * Encontra TODOS os segmentos retos válidos que começam em QUALQUER BORDA
+     * na direção de entrada correspondente.
+     */
+    private static List<RowSegment> scanEdges(Grid g) {
+        int rows = g.rows, cols = g.cols;
+        List<RowSegment> candidates = new ArrayList<>();
+
+        // Borda superior: entrada "para baixo" (DOWN)
+        for (int c = 0; c < cols; c++) addIfEntry(g, 0, c, Direction.DOWN, candidates);
+        // Borda inferior: entrada "para cima" (UP)
+        for (int c = 0; c < cols; c++) addIfEntry(g, rows - 1, c, Direction.UP, candidates);
+        // Borda esquerda: entrada "para direita" (RIGHT)
+        for (int r = 0; r < rows; r++) addIfEntry(g, r, 0, Direction.RIGHT, candidates);
+        // Borda direita: entrada "para esquerda" (LEFT)
+        for (int r = 0; r < rows; r++) addIfEntry(g, r, cols - 1, Direction.LEFT, candidates);
+
+        return candidates;
+    }
+
+    /** Se (r, c) é entrada na direção d, expande a via até onde dá e registra o segmento. */
+    private static void addIfEntry(Grid g, int r, int c, Direction d, List<RowSegment> out) {
+        if (!isLaneForwardOrX(g.get(r, c), d)) return;
+        int rr = r, cc = c;
+        while (inBounds(rr, cc, g) && isLaneForwardOrX(g.get(rr, cc), d)) {
+            rr += d.dirRow;
+            cc += d.dirCol;
+        }
+        // último válido é um passo antes
+        out.add(new RowSegment(r, c, rr - d.dirRow, cc - d.dirCol, d));
+    }
+}
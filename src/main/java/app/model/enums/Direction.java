@@ -22,17 +22,26 @@ public enum Direction {
             this.laneCode = laneCode;
         }
 
-        public static Direction getDirectionFromLaneCode(int code) {
-            if (code == 1) {
-                return Direction.UP;
-            } else if (code == 2) {
-                return Direction.RIGHT;
-            } else if (code == 3) {
-                return Direction.DOWN;
-            }else {
-                return Direction.LEFT;
-            }
+        /** Direção de cada estrada (1..4) indexada pelo código; null para os demais. */
+        private static final Direction[] BY_LANE_CODE = new Direction[LaneCode.values().length];
+
+        static {
+            for (Direction d : values()) BY_LANE_CODE[d.laneCode.getCodigo()] = d;
         }
 
+        /**
+         * Direção implícita de uma estrada (1..4), ou null se o código não for estrada.
+         */
+        public static Direction ofLaneCode(int code) {
+            return code >= 0 && code < BY_LANE_CODE.length ? BY_LANE_CODE[code] : null;
+        }
 
+        /**
+         * Direção da estrada com o código informado. Mantém o comportamento antigo para o que não é
+         * estrada (1..4): devolve LEFT.
+         */
+        public static Direction getDirectionFromLaneCode(int code) {
+            Direction d = ofLaneCode(code);
+            return d != null ? d : Direction.LEFT;
+        }
 }
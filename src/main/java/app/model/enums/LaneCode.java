@@ -1,7 +1,12 @@
 package app.model.enums;
 
-import java.util.ArrayList;
-
+/**
+ * Códigos das células da malha.
+ *
+ * As classificações usadas no passo dos carros ({@link #isOnCrossroad}, {@link #fromCode} etc.) são
+ * tabelas indexadas pelo código, montadas uma vez: cada consulta é uma leitura de array, sem alocação.
+ * Códigos fora de 0..255 (ou sem constante) não têm propriedade nenhuma.
+ */
 public enum LaneCode {
     NADA(0),
     ESTRADA_CIMA(1),
@@ -27,19 +32,53 @@ public enum LaneCode {
         return codigo;
     }
 
-    public static boolean isOnCrossroad(int codigo) {
-        ArrayList<Integer> crossroads = new ArrayList<>();
-        crossroads.add(LaneCode.CRUZAMENTO_CIMA.getCodigo());           // 5
-        crossroads.add(LaneCode.CRUZAMENTO_DIREITA.getCodigo());        // 6
-        crossroads.add(LaneCode.CRUZAMENTO_BAIXO.getCodigo());          // 7
-        crossroads.add(LaneCode.CRUZAMENTO_ESQUERDA.getCodigo());       // 8
-        crossroads.add(LaneCode.CRUZAMENTO_CIMA_DIREITA.getCodigo());   // 9
-        crossroads.add(LaneCode.CRUZAMENTO_CIMA_ESQUERDA.getCodigo());  // 10
-        crossroads.add(LaneCode.CRUZAMENTO_DIREITA_BAIXO.getCodigo());  // 11
-        crossroads.add(LaneCode.CRUZAMENTO_ESQUERDA_BAIXO.getCodigo()); // 12
+    /** Propriedades por código (bits abaixo). */
+    private static final int CROSSING = 1, TWO_WAY = 2, ROAD = 4;
+
+    /** Maior código representável na malha (1 byte por célula, ver {@code app.model.Grid}). */
+    private static final int MAX_CODE = 0xFF;
+
+    private static final LaneCode[] BY_CODE = new LaneCode[MAX_CODE + 1];
+    private static final byte[] PROPS = new byte[MAX_CODE + 1];
 
-        return crossroads.contains(codigo);
+    static {
+        for (LaneCode lc : values()) {
+            BY_CODE[lc.codigo] = lc;
+            int props = switch (lc) {
+                case NADA -> 0;
+                case ESTRADA_CIMA, ESTRADA_DIREITA, ESTRADA_BAIXO, ESTRADA_ESQUERDA -> ROAD;
+                case CRUZAMENTO_CIMA, CRUZAMENTO_DIREITA, CRUZAMENTO_BAIXO, CRUZAMENTO_ESQUERDA -> CROSSING;
+                case CRUZAMENTO_CIMA_DIREITA, CRUZAMENTO_CIMA_ESQUERDA,
+                        CRUZAMENTO_DIREITA_BAIXO, CRUZAMENTO_ESQUERDA_BAIXO -> CROSSING | TWO_WAY;
+            };
+            PROPS[lc.codigo] = (byte) props;
+        }
     }
 
+    private static int props(int codigo) {
+        return (codigo & ~MAX_CODE) == 0 ? PROPS[codigo] : 0;
+    }
+
+    /**
+     * Converte o inteiro do grid em {@link LaneCode}.
+     * @return enum correspondente ou null se não houver
+     */
+    public static LaneCode fromCode(int codigo) {
+        return (codigo & ~MAX_CODE) == 0 ? BY_CODE[codigo] : null;
+    }
 
+    /** Célula de cruzamento (5..12). */
+    public static boolean isOnCrossroad(int codigo) {
+        return (props(codigo) & CROSSING) != 0;
+    }
+
+    /** Cruzamento com as duas vias, vertical e horizontal (9..12) — os que formam os blocos 2x2. */
+    public static boolean isTwoWayCrossing(int codigo) {
+        return (props(codigo) & TWO_WAY) != 0;
+    }
+
+    /** Estrada comum, de mão única (1..4). */
+    public static boolean isRoad(int codigo) {
+        return (props(codigo) & ROAD) != 0;
+    }
 }
@@ -1,119 +1,292 @@
 package app.view;
 
+import app.core.CellLockMetrics;
 import app.core.SimulationState;
+import app.model.Grid;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 
-import java.util.Collection;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * Classe responsável por renderizar a malha e seu conteúdo
  */
 public class MatrixCanvas extends Canvas {
 
-    private int[][] grid;
+    private Grid grid;
     private double padding = 20; // margem ao redor
 
-    // Abordagem para N carros, cara item vai ser uma lista [row, col]
-    private Collection<SimulationState.CarInfo> cars = List.of(); // novo
+    /** Estado da simulação de onde vêm a ocupação das células e as células alteradas. */
+    private SimulationState state;
+
+    /** Próximo frame repinta tudo (fundo + todos os carros) em vez de só as células alteradas. */
+    private boolean fullRepaint = true;
+
+    /**
+     * Camada estática (fundo, células, números e linhas) renderizada uma única vez numa imagem.
+     * Só é refeita quando a malha ou o tamanho do canvas mudam; a cada frame apenas copia a imagem
+     * e pinta os carros por cima.
+     */
+    private WritableImage background;
+    private boolean backgroundDirty = true;
+
+    // Geometria da malha calculada junto com o fundo (usada para posicionar os carros)
+    private double cellSize, startX, startY;
+
+    /**
+     * Mapa de calor opcional: pinta cada célula por cima do fundo conforme a espera acumulada nos locks
+     * (relativa à célula mais disputada). Recalculado a cada {@link #HEAT_REFRESH_NANOS}, não por frame.
+     */
+    private CellLockMetrics heat;
+    /** Nível de calor por célula (índice em {@link #HEAT_COLORS}; 0 = sem calor). */
+    private byte[] heatLevel;
+    private long lastHeatUpdate;
 
     public MatrixCanvas() {
         // tamanho preferido inicial
         setWidth(900);
         setHeight(600);
 
-        // Redesenha quando o tamanho do canvas muda
-        widthProperty().addListener((obs, o, n) -> redraw());
-        heightProperty().addListener((obs, o, n) -> redraw());
+        // Redesenha (com novo fundo) quando o tamanho do canvas muda
+        widthProperty().addListener((obs, o, n) -> invalidateBackground());
+        heightProperty().addListener((obs, o, n) -> invalidateBackground());
     }
 
-    public void setGrid(int[][] grid) {
+    public void setGrid(Grid grid) {
         this.grid = grid;
+        invalidateBackground();
+    }
+
+    /** Descarta o fundo em cache e redesenha. */
+    private void invalidateBackground() {
+        backgroundDirty = true;
         redraw();
     }
 
+    /**
+     * Repinta tudo: fundo em cache + os carros ativos (percorre os carros, não as células da malha).
+     * As células marcadas como alteradas até aqui são descartadas (já estão refletidas).
+     */
     public void redraw() {
         GraphicsContext g = getGraphicsContext2D();
-        double w = getWidth();
-        double h = getHeight();
 
-        // fundo
-        g.setFill(Color.web("#1e1e1e"));
-        g.fillRect(0, 0, w, h);
+        if (backgroundDirty) {
+            renderBackground();
+            backgroundDirty = false;
+        }
+        if (background != null) {
+            g.drawImage(background, 0, 0);
+        }
+        fullRepaint = false;
+        drawHeat(g);
 
         // Se uma matriz não for informada não há nada para redesenhar
-        if (grid == null || grid.length == 0 || grid[0].length == 0) return;
-
-        int rows = grid.length;
-        int cols = grid[0].length;
-
-        double drawableW = w - 2 * padding;
-        double drawableH = h - 2 * padding;
-
-        // Define células quadradas que caibam na tela
-        double cellSize = Math.floor(Math.min(drawableW / cols, drawableH / rows));
-        double startX = (w - (cellSize * cols)) / 2.0;
-        double startY = (h - (cellSize * rows)) / 2.0;
-
-        // Desenha as celulas
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                int code = grid[r][c];
-
-                //Pinta a célula de acordo com o seu código
-                g.setFill(colorFor(code));
-                double x = startX + c * cellSize;
-                double y = startY + r * cellSize;
-                g.fillRect(x, y, cellSize, cellSize);
-
-                // Agora desenha o número no centro
-                g.setFill(Color.BLACK); // Cor do texto (ou outra que contraste com o fundo)
-                g.setFont(new Font("Arial", cellSize * 0.5)); // Tamanho proporcional à célula
-
-                // Texto que será exibido (por exemplo, o próprio código)
-                String texto = String.valueOf(code);
-
-                // Calcula as coordenadas para centralizar o texto
-                Text tempText = new Text(texto);
-                tempText.setFont(g.getFont());
-                double textWidth = tempText.getLayoutBounds().getWidth();
-                double textHeight = tempText.getLayoutBounds().getHeight();
-
-                // Desenha o texto centralizado
-                g.fillText(
-                        texto,
-                        x + (cellSize - textWidth) / 2,
-                        y + (cellSize + textHeight / 2) / 2
-                );
+        if (!hasCars()) return;
 
+        state.drainDirty(cell -> { });
+        state.forEachCar((id, r, c) -> drawCar(g, startX, startY, cellSize, r, c, CarColors.colorForId(id)));
+    }
+
+    /**
+     * Chamado a cada frame: repinta só as células que mudaram desde o frame anterior
+     * (fundo da célula copiado do cache + o carro que estiver nela agora).
+     */
+    public void refresh() {
+        if (fullRepaint || backgroundDirty) {
+            redraw();
+            return;
+        }
+        if (!hasCars() || background == null) return;
+
+        GraphicsContext g = getGraphicsContext2D();
+        // Calor recalculado: repinta só as células cujo nível mudou
+        if (heat != null && System.nanoTime() - lastHeatUpdate > HEAT_REFRESH_NANOS) {
+            updateHeat(cell -> repaintCell(g, cell));
+        }
+        state.drainDirty(cell -> repaintCell(g, cell));
+    }
+
+    /** Fundo da célula copiado do cache + calor + o carro que estiver nela agora. */
+    private void repaintCell(GraphicsContext g, int cell) {
+        int cols = state.getCols();
+        int r = cell / cols, c = cell % cols;
+        double x = startX + c * cellSize, y = startY + r * cellSize;
+        g.drawImage(background, x, y, cellSize, cellSize, x, y, cellSize, cellSize);
+        if (heatLevel != null && heatLevel[cell] != 0) {
+            g.setFill(HEAT_COLORS[heatLevel[cell]]);
+            g.fillRect(x, y, cellSize, cellSize);
+        }
+        long id = state.occupantAt(cell);
+        if (id != 0) {
+            drawCar(g, startX, startY, cellSize, r, c, CarColors.colorForId(id));
+        }
+    }
+
+    /**
+     * Liga o mapa de calor com as métricas informadas ({@code null} desliga).
+     */
+    public void setHeat(CellLockMetrics metrics) {
+        this.heat = metrics;
+        if (metrics == null) heatLevel = null;
+        else updateHeat(cell -> { });
+        fullRepaint = true;
+    }
+
+    /**
+     * Recalcula o nível de cada célula: espera total / maior espera, em {@code HEAT_COLORS.length - 1} faixas.
+     * @param changed recebe cada célula cujo nível mudou
+     */
+    private void updateHeat(IntConsumer changed) {
+        lastHeatUpdate = System.nanoTime();
+        CellLockMetrics m = heat;
+        if (m == null || grid == null || m.rows != grid.rows || m.cols != grid.cols) {
+            heatLevel = null;
+            return;
+        }
+        int cells = m.rows * m.cols;
+        if (heatLevel == null || heatLevel.length != cells) heatLevel = new byte[cells];
+        long[] max = {0};
+        m.forEachCell((r, c, acq, cont, wait, maxWait, tmo) -> max[0] = Math.max(max[0], wait));
+        int levels = HEAT_COLORS.length - 1;
+        for (int cell = 0; cell < cells; cell++) {
+            long wait = max[0] == 0 ? 0 : m.waitNanos(cell);
+            // qualquer disputa aparece (nível mínimo 1); o custo de pegar uma célula livre, não
+            // sem espera registrada ainda (ex.: medição recém-ligada): tudo no nível 0
+            int level0 = max[0] == 0 ? 0 : (int) (wait * levels / max[0]);
+            byte level = (byte) (level0 == 0 && wait > 0 && m.contended(cell) > 0 ? 1 : level0);
+            if (heatLevel[cell] != level) {
+                heatLevel[cell] = level;
+                changed.accept(cell);
             }
         }
+    }
 
-        // Desenha as linhas da grade
-        g.setStroke(Color.gray(0.25));
-        g.setLineWidth(1.0);
-        for (int r = 0; r <= rows; r++) {
-            double y = startY + r * cellSize + 0.5;
-            g.strokeLine(startX, y, startX + cols * cellSize, y);
+    private void drawHeat(GraphicsContext g) {
+        if (heatLevel == null || grid == null) return;
+        int cols = grid.cols;
+        for (int cell = 0; cell < heatLevel.length; cell++) {
+            if (heatLevel[cell] == 0) continue;
+            g.setFill(HEAT_COLORS[heatLevel[cell]]);
+            g.fillRect(startX + (cell % cols) * cellSize, startY + (cell / cols) * cellSize, cellSize, cellSize);
         }
-        for (int c = 0; c <= cols; c++) {
-            double x = startX + c * cellSize + 0.5;
-            g.strokeLine(x, startY, x, startY + rows * cellSize);
+    }
+
+    /** Há estado compatível com a malha desenhada (mesmas dimensões). */
+    private boolean hasCars() {
+        return state != null && grid != null && grid.rows == state.getRows()
+                && grid.rows > 0 && grid.cols == state.getCols();
+    }
+
+    /**
+     * Renderiza a camada estática num canvas fora da tela e guarda o snapshot em {@link #background}.
+     * Fonte criada uma vez e largura do texto medida uma vez por código (não mais por célula).
+     */
+    private void renderBackground() {
+        double w = getWidth();
+        double h = getHeight();
+        int iw = (int) Math.ceil(w), ih = (int) Math.ceil(h);
+        if (iw <= 0 || ih <= 0) {
+            background = null;
+            return;
         }
 
-        // desenha N carros
-        for (SimulationState.CarInfo info : cars) {
-            drawCar(g, startX, startY, cellSize, info.getR(), info.getC(), info.color);
+        Canvas layer = new Canvas(w, h);
+        GraphicsContext g = layer.getGraphicsContext2D();
+
+        // fundo
+        g.setFill(BACKGROUND);
+        g.fillRect(0, 0, w, h);
+
+        if (grid != null && grid.rows > 0 && grid.cols > 0) {
+            int rows = grid.rows;
+            int cols = grid.cols;
+
+            double drawableW = w - 2 * padding;
+            double drawableH = h - 2 * padding;
+
+            // Define células quadradas que caibam na tela
+            cellSize = Math.floor(Math.min(drawableW / cols, drawableH / rows));
+            startX = (w - (cellSize * cols)) / 2.0;
+            startY = (h - (cellSize * rows)) / 2.0;
+
+            // Fonte e medidas dos rótulos: uma vez por tamanho de célula / código
+            Font font = new Font("Arial", cellSize * 0.5); // Tamanho proporcional à célula
+            g.setFont(font);
+            Map<Integer, double[]> labelSize = new HashMap<>();
+
+            // Desenha as celulas
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int code = grid.get(r, c);
+
+                    //Pinta a célula de acordo com o seu código
+                    g.setFill(colorFor(code));
+                    double x = startX + c * cellSize;
+                    double y = startY + r * cellSize;
+                    g.fillRect(x, y, cellSize, cellSize);
+
+                    // Agora desenha o número no centro
+                    g.setFill(Color.BLACK); // Cor do texto (ou outra que contraste com o fundo)
+
+                    // Texto que será exibido (por exemplo, o próprio código)
+                    String texto = String.valueOf(code);
+
+                    // Largura/altura do texto (medidas só na primeira ocorrência do código)
+                    double[] size = labelSize.computeIfAbsent(code, k -> {
+                        Text tempText = new Text(texto);
+                        tempText.setFont(font);
+                        return new double[]{tempText.getLayoutBounds().getWidth(), tempText.getLayoutBounds().getHeight()};
+                    });
+
+                    // Desenha o texto centralizado
+                    g.fillText(
+                            texto,
+                            x + (cellSize - size[0]) / 2,
+                            y + (cellSize + size[1] / 2) / 2
+                    );
+                }
+            }
+
+            // Desenha as linhas da grade
+            g.setStroke(Color.gray(0.25));
+            g.setLineWidth(1.0);
+            for (int r = 0; r <= rows; r++) {
+                double y = startY + r * cellSize + 0.5;
+                g.strokeLine(startX, y, startX + cols * cellSize, y);
+            }
+            for (int c = 0; c <= cols; c++) {
+                double x = startX + c * cellSize + 0.5;
+                g.strokeLine(x, startY, x, startY + rows * cellSize);
+            }
+        }
+
+        // Reaproveita a imagem anterior se o tamanho não mudou
+        if (background == null || (int) background.getWidth() != iw || (int) background.getHeight() != ih) {
+            background = new WritableImage(iw, ih);
         }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(BACKGROUND);
+        background = layer.snapshot(params, background);
     }
 
     private void drawCar(GraphicsContext g, double startX, double startY, double cellSize, int r, int c, Color color) {
         double x = startX + c * cellSize, y = startY + r * cellSize;
 
+        // Células muito pequenas: o carro (diâmetro mínimo de 4px + bordas) vazaria para as vizinhas e
+        // repintar célula a célula deixaria rastros; pinta só a própria célula
+        if (cellSize < SMALL_CELL) {
+            g.setFill(color);
+            g.fillRect(x, y, cellSize, cellSize);
+            return;
+        }
+
         // diâmetro base do carro
         double d = Math.max(4.0, cellSize * 0.50);
 
@@ -142,40 +315,54 @@ public class MatrixCanvas extends Canvas {
     }
 
 
+    /** Abaixo deste tamanho de célula (px) o carro é desenhado como um quadrado do tamanho da célula. */
+    private static final double SMALL_CELL = 8;
+
+    /** Intervalo entre recálculos do mapa de calor. */
+    private static final long HEAT_REFRESH_NANOS = 500_000_000L;
+
+    /** Vermelho translúcido, mais opaco quanto maior a espera (índice 0 não é usado). */
+    private static final Color[] HEAT_COLORS = new Color[16];
+    static {
+        for (int i = 1; i < HEAT_COLORS.length; i++) {
+            HEAT_COLORS[i] = Color.color(1.0, 0.1, 0.0, 0.15 + 0.6 * i / (HEAT_COLORS.length - 1));
+        }
+    }
+
+    /** Cor do fundo (fora da malha). */
+    private static final Color BACKGROUND = Color.web("#1e1e1e");
+
+    /** Cores por código 0..12, resolvidas uma vez (o {@link Color#web} faz parsing a cada chamada). */
+    private static final Color[] CODE_COLORS = {
+            Color.web("#2b2b2b"), // 0 nada
+            Color.web("#4FC3F7"), // 1 estrada cima
+            Color.web("#81C784"), // 2 direita
+            Color.web("#FFB74D"), // 3 baixo
+            Color.web("#BA68C8"), // 4 esquerda
+            Color.web("#29B6F6"), // 5 cruzamento cima
+            Color.web("#66BB6A"), // 6 cruzamento direita
+            Color.web("#FFA726"), // 7 cruzamento baixo
+            Color.web("#AB47BC"), // 8 cruzamento esquerda
+            Color.web("#26C6DA"), // 9 cruzamento cima+direita
+            Color.web("#5C6BC0"), // 10 cima+esquerda
+            Color.web("#26A69A"), // 11 direita+baixo
+            Color.web("#EF5350"), // 12 baixo+esquerda
+    };
+
     /**
      * Mapeamento simples de cores para códigos 0..12
      */
     private Color colorFor(int code) {
-        return switch (code) {
-            case 0 -> Color.web("#2b2b2b"); // nada
-            case 1 -> Color.web("#4FC3F7"); // estrada cima
-            case 2 -> Color.web("#81C784"); // direita
-            case 3 -> Color.web("#FFB74D"); // baixo
-            case 4 -> Color.web("#BA68C8"); // esquerda
-            case 5 -> Color.web("#29B6F6"); // cruzamento cima
-            case 6 -> Color.web("#66BB6A"); // cruzamento direita
-            case 7 -> Color.web("#FFA726"); // cruzamento baixo
-            case 8 -> Color.web("#AB47BC"); // cruzamento esquerda
-            case 9 -> Color.web("#26C6DA"); // cruzamento cima+direita
-            case 10 -> Color.web("#5C6BC0"); // cima+esquerda
-            case 11 -> Color.web("#26A69A"); // direita+baixo
-            case 12 -> Color.web("#EF5350"); // baixo+esquerda
-            default -> Color.DARKGRAY;
-        };
+        return (code >= 0 && code < CODE_COLORS.length) ? CODE_COLORS[code] : Color.DARKGRAY;
     }
 
     /**
-     * Define os carros que vão estar rodando na simulação
-     * @param cars
+     * Define o estado da simulação que será desenhado (a partir do próximo frame, tudo é repintado)
+     * @param state
      */
-    public void setCars(Collection<SimulationState.CarInfo> cars) {
-        this.cars = (cars == null ? List.of() : cars);
-        redraw();
-    }
-
-    public void clearCars() {
-        this.cars = List.of();
-        redraw();
+    public void setState(SimulationState state) {
+        this.state = state;
+        fullRepaint = true;
     }
 
 
@@ -13,16 +13,30 @@ public class Ui {
     private Spinner<Integer> spnMaxVeiculos;
     private Spinner<Integer> spnIntervaloMs;
     private ComboBox<String> cbExclusao;
+    private ComboBox<String> cbExecucao;
+    private ComboBox<String> cbRetentativa;
 
     private Button btnIniciar;
     private Button btnEncerrarInsercao;
     private Button btnEncerrar;
 
+    // Métricas de disputa dos locks
+    private CheckBox chkMapaCalor;
+    private CheckBox chkResolverTravamentos;
+    private Button btnExportarMetricas;
+
+    // Barra de status com as estatísticas das viagens
+    private Label lbEstatisticas;
+
     public BorderPane buildLayout(Stage stage, MatrixCanvas matrixCanvas) {
         BorderPane root = new BorderPane();
         root.setTop(this.buildToolbar());
 
         root.setCenter(matrixCanvas);
+
+        lbEstatisticas = new Label("");
+        lbEstatisticas.setPadding(new Insets(4, 8, 4, 8));
+        root.setBottom(lbEstatisticas);
         BorderPane.setAlignment(matrixCanvas, Pos.CENTER);
         BorderPane.setMargin(matrixCanvas, new Insets(8));
 
@@ -40,7 +54,7 @@ public class Ui {
 
     public ToolBar buildToolbar() {
         // Limite de veículos simultâneos
-        spnMaxVeiculos = new Spinner<>(1, 1000, 50, 1);
+        spnMaxVeiculos = new Spinner<>(1, 100_000, 50, 1);
         spnMaxVeiculos.setEditable(true);
         spnMaxVeiculos.setPrefWidth(100);
 
@@ -51,16 +65,35 @@ public class Ui {
 
         // Mecanismo de exclusão mútua
         cbExclusao = new ComboBox<>();
-        cbExclusao.getItems().addAll("Semáforo", "Monitor");
+        cbExclusao.getItems().addAll("Semáforo", "Monitor", "Monitor (Lock/Condition)", "Monitor FIFO (handoff)", "CAS (lock-free)",
+                "Máscara por cruzamento (CAS)");
         cbExclusao.getSelectionModel().selectFirst();
 
+        // Onde os carros rodam
+        cbExecucao = new ComboBox<>();
+        cbExecucao.getItems().addAll("Threads de plataforma", "Threads virtuais", "Motor de ticks", "Motor de ticks por regiões");
+        cbExecucao.getSelectionModel().selectFirst();
+
+        // Política de nova tentativa nos cruzamentos (vale para os carros inseridos a partir da troca)
+        cbRetentativa = new ComboBox<>();
+        cbRetentativa.getItems().addAll("Fixa (200 ms)", "Adaptativa (backoff + jitter)");
+        cbRetentativa.getSelectionModel().selectFirst();
+
         btnIniciar = new Button("Iniciar simulação");
         btnEncerrarInsercao = new Button("Encerrar inserção");
         btnEncerrar = new Button("Encerrar simulação");
 
+        chkMapaCalor = new CheckBox("Mapa de calor");
+        // Travamentos circulares sempre são detectados; marcado = retira um carro para desfazê-los
+        chkResolverTravamentos = new CheckBox("Resolver travamentos");
+        chkResolverTravamentos.setSelected(true);
+        btnExportarMetricas = new Button("Exportar métricas");
+
         Label lbMax = new Label("Limite veículos:");
         Label lbInt = new Label("Intervalo (ms):");
         Label lbExc = new Label("Exclusão mútua:");
+        Label lbExe = new Label("Execução:");
+        Label lbRet = new Label("Nova tentativa:");
 
         ToolBar tb = new ToolBar(
                 lbMax, spnMaxVeiculos,
@@ -69,9 +102,17 @@ public class Ui {
                 new Separator(),
                 lbExc, cbExclusao,
                 new Separator(),
+                lbExe, cbExecucao,
+                new Separator(),
+                lbRet, cbRetentativa,
+                new Separator(),
                 btnIniciar,
                 btnEncerrarInsercao,
-                btnEncerrar
+                btnEncerrar,
+                new Separator(),
+                chkMapaCalor,
+                chkResolverTravamentos,
+                btnExportarMetricas
         );
         tb.setPadding(new Insets(6));
         return tb;
@@ -89,6 +130,22 @@ public class Ui {
         return btnEncerrar;
     }
 
+    public CheckBox getChkMapaCalor() {
+        return chkMapaCalor;
+    }
+
+    public CheckBox getChkResolverTravamentos() {
+        return chkResolverTravamentos;
+    }
+
+    public Button getBtnExportarMetricas() {
+        return btnExportarMetricas;
+    }
+
+    public Label getLbEstatisticas() {
+        return lbEstatisticas;
+    }
+
     public Spinner<Integer> getSpnMaxVeiculos() {
         return spnMaxVeiculos;
     }
@@ -100,4 +157,12 @@ public class Ui {
     public ComboBox<String> getCbExclusao() {
         return cbExclusao;
     }
+
+    public ComboBox<String> getCbExecucao() {
+        return cbExecucao;
+    }
+
+    public ComboBox<String> getCbRetentativa() {
+        return cbRetentativa;
+    }
 }
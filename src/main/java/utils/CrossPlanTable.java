@@ -0,0 +1,259 @@
+package utils;
+
+import app.model.Grid;
+import app.model.enums.Direction;
+import app.model.enums.LaneCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tabela pré-calculada com TODOS os planos de travessia válidos de uma malha.
+ *
+ * Para cada (célula de cruzamento, direção de entrada) guarda os planos possíveis — um por saída viável —
+ * exatamente como o {@link CrossPlanner} os calcularia. Depois de construída, escolher um plano é
+ * uma busca binária + um sorteio, sem nenhuma alocação.
+ *
+ * Layout (tudo em arrays primitivos "achatados"):
+ * - {@code keys[k]} = {@code cellId * 4 + entryDir.ordinal()}, ordenado; os planos da chave k ficam em
+ *   {@code [keyStart[k], keyStart[k + 1])}.
+ * - Plano p: células em {@code pathIds[planFrom[p] .. planFrom[p] + planLen[p])} na ordem de travessia
+ *   (internas + 1ª fora), as mesmas células em ordem crescente de id em {@code lockIds} (pronto para o
+ *   {@code acquireAll} sem ordenar) e a direção de saída em {@code exitDir[p]}.
+ * - Cada plano pertence a um cruzamento ({@code crossingOf}, 0..{@code crossingCount - 1}: um bloco 2x2 ou uma
+ *   célula isolada). {@code pathBits} (alinhado a {@code pathIds}) dá o bit de cada célula INTERNA dentro do
+ *   seu cruzamento (0 para a célula de saída) e {@code internalMask} a união desses bits.
+ * - {@code cellId = r * cols + c}.
+ *
+ * Os arrays devolvidos pelos getters são compartilhados: somente leitura.
+ */
+public final class CrossPlanTable {
+
+    private static final Direction[] DIRS = Direction.values();
+
+    /** Última tabela construída e a malha à qual ela pertence (reconstruída se a malha mudar). */
+    private static volatile CrossPlanTable cached;
+
+    private final Grid grid;
+    private final int cols;
+
+    private final int[] keys;
+    private final int[] keyStart;
+
+    private final int[] planFrom;
+    private final int[] planLen;
+    private final byte[] exitDir;
+    private final int[] pathIds;
+    private final int[] lockIds;
+    private final byte[] pathBits;
+    private final int[] crossingOf;
+    private final int[] internalMask;
+    private final int crossingCount;
+    /** Mesmo plano no formato {@link CrossPlanner.Path} (compartilhado, para quem ainda usa listas). */
+    private final CrossPlanner.Path[] paths;
+
+    private CrossPlanTable(Grid grid, int[] keys, int[] keyStart, int[] planFrom, int[] planLen,
+                           byte[] exitDir, int[] pathIds, int[] lockIds, byte[] pathBits,
+                           int[] crossingOf, int[] internalMask, int crossingCount, CrossPlanner.Path[] paths) {
+        this.grid = grid;
+        this.cols = grid.cols;
+        this.keys = keys;
+        this.keyStart = keyStart;
+        this.planFrom = planFrom;
+        this.planLen = planLen;
+        this.exitDir = exitDir;
+        this.pathIds = pathIds;
+        this.lockIds = lockIds;
+        this.pathBits = pathBits;
+        this.crossingOf = crossingOf;
+        this.internalMask = internalMask;
+        this.crossingCount = crossingCount;
+        this.paths = paths;
+    }
+
+    /**
+     * Tabela da malha informada, reaproveitando a última construída se for a mesma malha.
+     */
+    public static CrossPlanTable forGrid(Grid grid) {
+        CrossPlanTable t = cached;
+        if (t == null || t.grid != grid) {
+            t = build(grid);
+            cached = t;
+        }
+        return t;
+    }
+
+    /**
+     * Enumera, para cada célula de cruzamento e cada direção de entrada, todas as saídas viáveis.
+     */
+    public static CrossPlanTable build(Grid grid) {
+        int rows = grid.rows, cols = grid.cols;
+
+        List<int[]> keyList = new ArrayList<>();          // {key, primeiro plano}
+        List<CrossPlanner.Path> planList = new ArrayList<>();
+        List<int[]> planCrossing = new ArrayList<>();     // {id do cruzamento, topRow, topCol, lado}
+        Map<Integer, Integer> crossingByTopLeft = new HashMap<>();
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!LaneCode.isOnCrossroad(grid.get(r, c))) continue;
+                int[] tl = CrossPlanner.find2x2TopLeft(grid, r, c);
+                int top = tl != null ? tl[0] : r, left = tl != null ? tl[1] : c, side = tl != null ? 2 : 1;
+                int crossing = crossingByTopLeft.computeIfAbsent(top * cols + left, k -> crossingByTopLeft.size());
+                int[] shape = {crossing, top, left, side};
+                for (Direction entryDir : DIRS) {
+                    int first = planList.size();
+                    for (Direction exit : DIRS) {
+                        if (exit == LaneSupport.opposite(entryDir)) continue;
+                        CrossPlanner.Path p = (tl != null)
+                                ? path2x2(grid, r, c, entryDir, exit, tl)
+                                : pathSimple(grid, r, c, exit);
+                        if (p != null) {
+                            planList.add(p);
+                            planCrossing.add(shape);
+                        }
+                    }
+                    if (planList.size() > first) {
+                        keyList.add(new int[]{(r * cols + c) * 4 + entryDir.ordinal(), first});
+                    }
+                }
+            }
+        }
+
+        // Chaves já saem em ordem crescente (varredura linha a linha, direções em ordem)
+        int nk = keyList.size();
+        int[] keys = new int[nk];
+        int[] keyStart = new int[nk + 1];
+        for (int k = 0; k < nk; k++) {
+            keys[k] = keyList.get(k)[0];
+            keyStart[k] = keyList.get(k)[1];
+        }
+        keyStart[nk] = planList.size();
+
+        int np = planList.size();
+        int[] planFrom = new int[np];
+        int[] planLen = new int[np];
+        byte[] exitDir = new byte[np];
+        int total = 0;
+        for (CrossPlanner.Path p : planList) total += p.cells.size();
+        int[] pathIds = new int[total];
+        int[] lockIds = new int[total];
+        byte[] pathBits = new byte[total];
+        int[] crossingOf = new int[np];
+        int[] internalMask = new int[np];
+
+        int off = 0;
+        for (int p = 0; p < np; p++) {
+            CrossPlanner.Path path = planList.get(p);
+            int[] shape = planCrossing.get(p);
+            planFrom[p] = off;
+            planLen[p] = path.cells.size();
+            exitDir[p] = (byte) path.exitDir.ordinal();
+            crossingOf[p] = shape[0];
+            for (int i = 0; i < path.cells.size(); i++) {
+                int[] cell = path.cells.get(i);
+                pathIds[off] = cell[0] * cols + cell[1];
+                lockIds[off] = pathIds[off];
+                // bit da célula dentro do cruzamento (a última é a 1ª fora: sem bit)
+                if (i < path.cells.size() - 1) {
+                    pathBits[off] = (byte) (1 << ((cell[0] - shape[1]) * shape[3] + (cell[1] - shape[2])));
+                    internalMask[p] |= pathBits[off];
+                }
+                off++;
+            }
+            Arrays.sort(lockIds, planFrom[p], off);
+        }
+
+        return new CrossPlanTable(grid, keys, keyStart, planFrom, planLen, exitDir, pathIds, lockIds,
+                pathBits, crossingOf, internalMask, crossingByTopLeft.size(),
+                planList.toArray(new CrossPlanner.Path[0]));
+    }
+
+    private static CrossPlanner.Path path2x2(Grid g, int r, int c, Direction entryDir, Direction exit, int[] tl) {
+        int[][] cells = CrossPlanner.corners2x2(tl[0], tl[1]);
+        int entryIdx = (r - tl[0]) * 2 + (c - tl[1]);
+        CrossPlanner.Path p = CrossPlanner.path2x2(g, entryDir, entryIdx, exit, cells);
+        return p == null ? null : new CrossPlanner.Path(List.copyOf(p.cells), p.exitDir);
+    }
+
+    /** Mesma regra do {@link CrossPlanner#planSimple}: a célula + 1ª fora na saída escolhida. */
+    private static CrossPlanner.Path pathSimple(Grid g, int r, int c, Direction exit) {
+        if ((LaneSupport.exitDirMask(g.get(r, c)) & LaneSupport.bit(exit)) == 0) return null;
+        int nr = r + exit.dirRow, nc = c + exit.dirCol;
+        if (!g.inside(nr, nc)) return null;
+        if (!LaneSupport.supportsDir(g.get(nr, nc), exit)) return null;
+        return new CrossPlanner.Path(List.of(new int[]{r, c}, new int[]{nr, nc}), exit);
+    }
+
+    /* ===================== CONSULTAS (sem alocação) ===================== */
+
+    /**
+     * Sorteia um plano para quem vai entrar na célula (r, c) vindo na direção {@code entryDir}.
+     * @return índice do plano, ou -1 se não há rota viável
+     */
+    public int pick(int r, int c, Direction entryDir, RandomGenerator rnd) {
+        int k = Arrays.binarySearch(keys, (r * cols + c) * 4 + entryDir.ordinal());
+        if (k < 0) return -1;
+        int from = keyStart[k], n = keyStart[k + 1] - from;
+        return n == 1 ? from : from + rnd.nextInt(n);
+    }
+
+    /** Mesmo plano no formato {@link CrossPlanner.Path} (instância compartilhada, não modificar). */
+    public CrossPlanner.Path path(int plan) {
+        return paths[plan];
+    }
+
+    public int planFrom(int plan) {
+        return planFrom[plan];
+    }
+
+    public int planLength(int plan) {
+        return planLen[plan];
+    }
+
+    public Direction exitDir(int plan) {
+        return DIRS[exitDir[plan]];
+    }
+
+    /** Ids das células dos planos na ordem de travessia (somente leitura). */
+    public int[] pathIds() {
+        return pathIds;
+    }
+
+    /** Ids das células dos planos em ordem crescente, por plano (somente leitura). */
+    public int[] lockIds() {
+        return lockIds;
+    }
+
+    /** Bits das células dos planos dentro do seu cruzamento, alinhado a {@link #pathIds()} (somente leitura). */
+    public byte[] pathBits() {
+        return pathBits;
+    }
+
+    /** Cruzamento (0..{@link #crossingCount()} - 1) atravessado pelo plano. */
+    public int crossingOf(int plan) {
+        return crossingOf[plan];
+    }
+
+    /** União dos bits das células internas do plano no seu cruzamento. */
+    public int internalMask(int plan) {
+        return internalMask[plan];
+    }
+
+    /** Quantidade de cruzamentos distintos da malha (blocos 2x2 + células isoladas). */
+    public int crossingCount() {
+        return crossingCount;
+    }
+
+    public int rowOf(int cellId) {
+        return cellId / cols;
+    }
+
+    public int colOf(int cellId) {
+        return cellId % cols;
+    }
+}
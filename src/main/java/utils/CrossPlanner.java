@@ -1,9 +1,12 @@
 package utils;
 
+import app.model.Grid;
 import app.model.enums.Direction;
+import app.model.enums.LaneCode;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Planejador determinístico/leve para travessia de cruzamentos.
@@ -23,12 +26,19 @@ import java.util.concurrent.ThreadLocalRandom;
  *
  * Observações:
  * - O método {@link #plan} é a única porta de entrada; o restante são helpers internos.
+ * - Todos os planos válidos da malha são pré-calculados uma vez na {@link CrossPlanTable};
+ *   {@link #plan} apenas sorteia um deles (sem alocar).
  * - O retorno {@link Path} traz a lista de células a serem reservadas (internas + 1 fora)
  *   e a direção de saída a ser adotada ao término da travessia.
  */
 public final class CrossPlanner {
     private CrossPlanner() {}
 
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Bits dos códigos 9, 10, 11 e 12: um bloco 2x2 completo. */
+    private static final int TWO_WAY_BLOCK = (1 << 9) | (1 << 10) | (1 << 11) | (1 << 12);
+
     /**
      * Planejador principal chamado pelo {@code Car.run()} quando detecta cruzamento.
      * Tenta detectar um cluster 2x2 e aplicar templates; caso contrário, usa fallback simples.
@@ -39,81 +49,63 @@ public final class CrossPlanner {
      * @param entryDir direção de entrada (direção do carro ao aproximar-se do cruzamento)
      * @return {@link Path} com células internas + 1ª fora e direção de saída; ou {@link Path#empty()} se inviável
      */
-    public static Path plan(int[][] grid, int rCross, int cCross, Direction entryDir) {
-        int[] tl = find2x2TopLeft(grid, rCross, cCross);
-        if (tl == null) {
-            return planSimple(grid, rCross, cCross, entryDir);
-        }
-        return plan2x2(grid, rCross, cCross, entryDir, tl[0], tl[1]);
+    public static Path plan(Grid grid, int rCross, int cCross, Direction entryDir) {
+        return plan(grid, rCross, cCross, entryDir, ThreadLocalRandom.current());
     }
 
     /**
-     * Planeja a travessia para um cluster 2x2 de cruzamento ({9,10,11,12} em alguma ordem).
+     * Igual a {@link #plan(Grid, int, int, Direction)}, mas com a fonte de aleatoriedade explícita
+     * (permite simulações determinísticas, ex.: o {@code TickEngine} com semente fixa).
      *
-     * Fluxo:
-     * 1) Mapeia as 4 células do bloco 2x2 (TL/TR/BL/BR).
-     * 2) Identifica a célula de entrada (primeira interna).
-     * 3) Gera candidatos de saída (exclui “voltar”) e embaralha (variação).
-     * 4) Monta o caminho interno por template e filtra pelo “primeiro par proibido”.
-     * 5) Valida e anexa a 1ª célula FORA do cruzamento na direção de saída.
+     * @param rnd gerador usado para sortear a saída
+     */
+    public static Path plan(Grid grid, int rCross, int cCross, Direction entryDir, RandomGenerator rnd) {
+        CrossPlanTable table = CrossPlanTable.forGrid(grid);
+        int p = table.pick(rCross, cCross, entryDir, rnd);
+        return p < 0 ? Path.EMPTY : table.path(p);
+    }
+
+    /**
+     * Monta (e valida) o caminho de UMA saída específica de um cluster 2x2:
+     * template interno, filtro do primeiro par proibido e 1ª célula fora.
+     * Usado na construção da {@link CrossPlanTable} e na compilação do {@link RoadGraph}.
      *
      * @param g        grid
-     * @param r        linha da célula interna pela qual o carro vai entrar
-     * @param c        coluna da célula interna pela qual o carro vai entrar
      * @param entryDir direção de entrada
-     * @param tlr      linha do top-left do bloco 2x2
-     * @param tlc      coluna do top-left do bloco 2x2
-     * @return {@link Path} pronto para reserva; ou {@link Path#empty()}
+     * @param entryIdx índice (0..3) da primeira célula interna
+     * @param exit     direção de saída desejada
+     * @param cells    mapeamento [0..3] → coordenadas (r,c) do 2x2 (ver {@link #corners2x2})
+     * @return caminho pronto para reserva; ou {@code null} se essa saída é inviável
      */
-    private static Path plan2x2(int[][] g, int r, int c, Direction entryDir, int tlr, int tlc) {
-        // Mapa das 4 células do cluster (posicionais)
-        int[][] cells = {
-                {tlr, tlc},         // 0: TL  (esperado 12)
-                {tlr, tlc + 1},     // 1: TR  (esperado 10)
-                {tlr + 1, tlc},     // 2: BL  (esperado 11)
-                {tlr + 1, tlc + 1}  // 3: BR  (esperado 9)
-        };
-
-        // Índice da célula pela qual o carro ENTRA primeiro no 2x2
-        int entryIdx = idxOf(cells, r, c);
-
-        // Saídas candidatas (não permitir voltar)
-        List<Direction> candidates = new ArrayList<>(List.of(Direction.UP, Direction.RIGHT, Direction.DOWN, Direction.LEFT));
-        candidates.remove(LaneSupport.opposite(entryDir));
-        Collections.shuffle(candidates, ThreadLocalRandom.current());
-
-        for (Direction exit : candidates) {
-            // Caminho INTERNO (somente dentro do 2x2)
-            List<int[]> internal = internalPathTemplate(entryDir, entryIdx, exit, cells);
-            if (internal.isEmpty()) continue;
-
-            // ====== FILTRO DOS "PARES INICIAIS PROIBIDOS" POR CÓDIGO ======
-            if (internal.size() >= 2) {
-                int[] a = internal.get(0);
-                int[] b = internal.get(1);
-                int codeA = g[a[0]][a[1]];
-                int codeB = g[b[0]][b[1]];
-                if (isForbiddenFirstPairByCode(entryDir, codeA, codeB)) {
-                    // viola a regra -> tenta outro exit
-                    continue;
-                }
+    static Path path2x2(Grid g, Direction entryDir, int entryIdx, Direction exit, int[][] cells) {
+        // Caminho INTERNO (somente dentro do 2x2)
+        List<int[]> internal = internalPathTemplate(entryDir, entryIdx, exit, cells);
+        if (internal.isEmpty()) return null;
+
+        // ====== FILTRO DOS "PARES INICIAIS PROIBIDOS" POR CÓDIGO ======
+        if (internal.size() >= 2) {
+            int[] a = internal.get(0);
+            int[] b = internal.get(1);
+            int codeA = g.get(a[0], a[1]);
+            int codeB = g.get(b[0], b[1]);
+            if (isForbiddenFirstPairByCode(entryDir, codeA, codeB)) {
+                // viola a regra -> saída inviável
+                return null;
             }
-            // ===============================================================
-
-            // Célula “fora” do cruzamento (primeira após a borda na direção de saída)
-            int[] last = internal.get(internal.size() - 1);
-            int outR = last[0] + exit.dirRow;
-            int outC = last[1] + exit.dirCol;
-            if (!inside(g, outR, outC)) continue;
-            if (!LaneSupport.supportsDir(g[outR][outC], exit)) continue;
-
-            // Caminho a reservar = todas internas + primeira fora
-            List<int[]> reserve = new ArrayList<>(internal);
-            reserve.add(new int[]{outR, outC});
-            return new Path(reserve, exit);
         }
-
-        return Path.empty();
+        // ===============================================================
+
+        // Célula “fora” do cruzamento (primeira após a borda na direção de saída)
+        int[] last = internal.get(internal.size() - 1);
+        int outR = last[0] + exit.dirRow;
+        int outC = last[1] + exit.dirCol;
+        if (!inside(g, outR, outC)) return null;
+        if (!LaneSupport.supportsDir(g.get(outR, outC), exit)) return null;
+
+        // Caminho a reservar = todas internas + primeira fora
+        List<int[]> reserve = new ArrayList<>(internal);
+        reserve.add(new int[]{outR, outC});
+        return new Path(reserve, exit);
     }
 
     /**
@@ -254,20 +246,27 @@ public final class CrossPlanner {
      * @param entryDir direção de entrada
      * @return {@link Path} simples; ou {@link Path#empty()}
      */
-    public static Path planSimple(int[][] grid, int rCross, int cCross, Direction entryDir) {
-        var exits = LaneSupport.possibleExitDirsFromCross(grid[rCross][cCross]);
-        exits.remove(LaneSupport.opposite(entryDir));
+    public static Path planSimple(Grid grid, int rCross, int cCross, Direction entryDir) {
+        return planSimple(grid, rCross, cCross, entryDir, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Igual a {@link #planSimple(Grid, int, int, Direction)}, com a fonte de aleatoriedade explícita.
+     */
+    public static Path planSimple(Grid grid, int rCross, int cCross, Direction entryDir, RandomGenerator rnd) {
+        int exits = LaneSupport.exitDirMask(grid.get(rCross, cCross)) & ~LaneSupport.bit(LaneSupport.opposite(entryDir));
 
         List<Direction> feasible = new ArrayList<>();
-        for (Direction d : exits) {
+        for (Direction d : DIRECTIONS) {
+            if ((exits & LaneSupport.bit(d)) == 0) continue;
             int nr = rCross + d.dirRow, nc = cCross + d.dirCol;
-            if (inside(grid, nr, nc) && LaneSupport.supportsDir(grid[nr][nc], d)) {
+            if (inside(grid, nr, nc) && LaneSupport.supportsDir(grid.get(nr, nc), d)) {
                 feasible.add(d);
             }
         }
         if (feasible.isEmpty()) return Path.empty();
 
-        Direction chosen = feasible.get(ThreadLocalRandom.current().nextInt(feasible.size()));
+        Direction chosen = feasible.get(rnd.nextInt(feasible.size()));
         List<int[]> cells = new ArrayList<>(2);
         cells.add(new int[]{rCross, cCross});
         cells.add(new int[]{rCross + chosen.dirRow, cCross + chosen.dirCol});
@@ -285,21 +284,21 @@ public final class CrossPlanner {
      * @param c coluna de referência
      * @return par {tlr, tlc} ou {@code null} se não for um 2×2 válido (9,10,11,12)
      */
-    private static int[] find2x2TopLeft(int[][] g, int r, int c) {
+    static int[] find2x2TopLeft(Grid g, int r, int c) {
         int[] ro = {0, -1};
         int[] co = {0, -1};
         for (int dr : ro) for (int dc : co) {
             int tlr = r + dr, tlc = c + dc;
             if (!inside(g, tlr, tlc) || !inside(g, tlr + 1, tlc + 1)) continue;
-            Set<Integer> s = new HashSet<>();
-            int[][] corners = {{tlr, tlc}, {tlr, tlc + 1}, {tlr + 1, tlc}, {tlr + 1, tlc + 1}};
+            // um bit por código visto: o bloco precisa ter os quatro (9, 10, 11 e 12)
+            int seen = 0;
             boolean allCross = true;
-            for (int[] p : corners) {
-                int code = g[p[0]][p[1]];
-                if (!isCrossCode(code)) { allCross = false; break; }
-                s.add(code);
+            for (int i = 0; i < 4 && allCross; i++) {
+                int code = g.get(tlr + (i >> 1), tlc + (i & 1));
+                allCross = LaneCode.isTwoWayCrossing(code);
+                if (allCross) seen |= 1 << code;
             }
-            if (allCross && s.containsAll(Set.of(9, 10, 11, 12))) {
+            if (allCross && seen == TWO_WAY_BLOCK) {
                 return new int[]{tlr, tlc};
             }
         }
@@ -307,26 +306,23 @@ public final class CrossPlanner {
     }
 
     /**
-     * Retorna o índice [0..3] (TL/TR/BL/BR) das coordenadas (r,c) no array {@code cs},
-     * ou -1 se (r,c) não pertence ao conjunto.
-     */
-    private static int idxOf(int[][] cs, int r, int c) {
-        for (int i = 0; i < cs.length; i++) if (cs[i][0] == r && cs[i][1] == c) return i;
-        return -1;
-    }
-
-    /**
-     * True se o código for um dos cruzamentos 2-vias (9..12).
+     * Coordenadas das 4 células de um bloco 2x2 a partir do top-left, na convenção
+     * 0: TL (esperado 12), 1: TR (10), 2: BL (11), 3: BR (9).
      */
-    private static boolean isCrossCode(int code) {
-        return code == 9 || code == 10 || code == 11 || code == 12;
+    static int[][] corners2x2(int tlr, int tlc) {
+        return new int[][]{
+                {tlr, tlc},         // 0: TL  (esperado 12)
+                {tlr, tlc + 1},     // 1: TR  (esperado 10)
+                {tlr + 1, tlc},     // 2: BL  (esperado 11)
+                {tlr + 1, tlc + 1}  // 3: BR  (esperado 9)
+        };
     }
 
     /**
      * Checagem de limites do grid.
      */
-    private static boolean inside(int[][] g, int r, int c) {
-        return r >= 0 && c >= 0 && r < g.length && c < g[0].length;
+    private static boolean inside(Grid g, int r, int c) {
+        return g.inside(r, c);
     }
 
     /* ===================== DTO ===================== */
@@ -339,12 +335,15 @@ public final class CrossPlanner {
      * Contratos:
      * - A lista {@code cells} NÃO inclui a célula atual do carro (antes de entrar).
      * - O chamador deve reservar todas as células antes de começar a avançar.
+     * - Os planos devolvidos por {@link #plan} são compartilhados (vêm da {@link CrossPlanTable}):
+     *   não modificar a lista nem os pares; copie antes de ordenar.
      */
     public static final class Path {
         public final List<int[]> cells; // TODAS internas + primeira fora
         public final Direction exitDir;
         public Path(List<int[]> cells, Direction exitDir) { this.cells = cells; this.exitDir = exitDir; }
-        public static Path empty() { return new Path(List.of(), null); }
+        static final Path EMPTY = new Path(List.of(), null);
+        public static Path empty() { return EMPTY; }
         public boolean isEmpty() { return cells == null || cells.isEmpty(); }
     }
 
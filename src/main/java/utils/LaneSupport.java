@@ -16,6 +16,7 @@ import java.util.EnumSet;
  * Observações:
  * - O mapeamento de compatibilidade usa os códigos definidos em {@link LaneCode}.
  * - “Cruzamentos com duas vias” (9–12) permitem tanto vertical quanto horizontal.
+ * - As regras ficam em tabelas por código (máscaras de direção), montadas uma vez: consultar é ler um array.
  * - Esta classe é stateless e final: apenas funções puras/utilitárias.
  */
 public final class LaneSupport {
@@ -35,6 +36,55 @@ public final class LaneSupport {
         };
     }
 
+    /** Cópia única de {@code Direction.values()} (o método clona o array a cada chamada). */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final int VERTICAL = bit(Direction.UP) | bit(Direction.DOWN);
+    private static final int HORIZONTAL = bit(Direction.LEFT) | bit(Direction.RIGHT);
+
+    /** Por código: direções em que a célula aceita movimento / saídas possíveis sobre o cruzamento. */
+    private static final byte[] SUPPORTED = new byte[256];
+    private static final byte[] EXITS = new byte[256];
+
+    static {
+        for (LaneCode lc : LaneCode.values()) {
+            int code = lc.getCodigo();
+            SUPPORTED[code] = (byte) switch (lc) {
+                // VERTICAL (cima/baixo)
+                case ESTRADA_CIMA, ESTRADA_BAIXO, CRUZAMENTO_CIMA, CRUZAMENTO_BAIXO -> VERTICAL;
+                // HORIZONTAL (esquerda/direita)
+                case ESTRADA_DIREITA, ESTRADA_ESQUERDA, CRUZAMENTO_DIREITA, CRUZAMENTO_ESQUERDA -> HORIZONTAL;
+                // CRUZAMENTOS COM AS DUAS VIAS (permitem vertical e horizontal)
+                case CRUZAMENTO_CIMA_DIREITA, CRUZAMENTO_CIMA_ESQUERDA,
+                        CRUZAMENTO_DIREITA_BAIXO, CRUZAMENTO_ESQUERDA_BAIXO -> VERTICAL | HORIZONTAL;
+                case NADA -> 0;
+            };
+            // Saídas só existem sobre cruzamentos: as mesmas direções que a célula aceita
+            EXITS[code] = LaneCode.isOnCrossroad(code) ? SUPPORTED[code] : 0;
+        }
+    }
+
+    /** Bit da direção nas máscaras ({@code 1 << ordinal}). */
+    public static int bit(Direction d) {
+        return 1 << d.ordinal();
+    }
+
+    /**
+     * Máscara (ver {@link #bit}) das direções em que a célula permite movimento — mesma regra de
+     * {@link #supportsDir}, para quem testa várias direções de uma vez.
+     */
+    public static int supportedDirMask(int code) {
+        return (code & ~0xFF) == 0 ? SUPPORTED[code] : 0;
+    }
+
+    /**
+     * Máscara (ver {@link #bit}) das saídas possíveis a partir de um cruzamento — mesma regra de
+     * {@link #possibleExitDirsFromCross}, sem alocar o conjunto.
+     */
+    public static int exitDirMask(int code) {
+        return (code & ~0xFF) == 0 ? EXITS[code] : 0;
+    }
+
     /**
      * Informa se uma célula (identificada por seu código) permite movimento na direção dada.
      *
@@ -49,27 +99,7 @@ public final class LaneSupport {
      * @return true se a célula de destino é compatível com a direção; false caso contrário
      */
     public static boolean supportsDir(int code, Direction dir) {
-        LaneCode lc = fromCode(code);
-        if (lc == null) return false;
-
-        return switch (lc) {
-            // VERTICAL (cima/baixo)
-            case ESTRADA_CIMA, ESTRADA_BAIXO,
-                    CRUZAMENTO_CIMA, CRUZAMENTO_BAIXO
-                    -> (dir == Direction.UP || dir == Direction.DOWN);
-
-            // HORIZONTAL (esquerda/direita)
-            case ESTRADA_DIREITA, ESTRADA_ESQUERDA,
-                    CRUZAMENTO_DIREITA, CRUZAMENTO_ESQUERDA
-                    -> (dir == Direction.LEFT || dir == Direction.RIGHT);
-
-            // CRUZAMENTOS COM AS DUAS VIAS (permitem vertical e horizontal)
-            case CRUZAMENTO_CIMA_DIREITA, CRUZAMENTO_CIMA_ESQUERDA,
-                    CRUZAMENTO_DIREITA_BAIXO, CRUZAMENTO_ESQUERDA_BAIXO
-                    -> true;
-
-            case NADA -> false;
-        };
+        return (supportedDirMask(code) & bit(dir)) != 0;
     }
 
 
@@ -80,54 +110,19 @@ public final class LaneSupport {
      * - Não considera retorno/U-turn (essa regra é aplicada no planner).
      * - Para cruzamentos 2-vias (9–12), devolve as quatro direções.
      * - Para cruzamentos 1-via (5–8), devolve apenas o conjunto coerente (vertical OU horizontal).
+     * - No caminho quente prefira {@link #exitDirMask}, que não aloca.
      *
      * @param code código da célula de cruzamento
-     * @return conjunto de direções permitidas a partir desta célula
+     * @return conjunto (novo, pode ser alterado) de direções permitidas a partir desta célula
      */
     public static EnumSet<Direction> possibleExitDirsFromCross(int code) {
         EnumSet<Direction> s = EnumSet.noneOf(Direction.class);
-        LaneCode lc = fromCode(code);
-        if (lc == null) return s;
-
-        switch (lc) {
-            // Cruzamentos verticais (apenas UP/DOWN)
-            case CRUZAMENTO_CIMA, CRUZAMENTO_BAIXO -> {
-                s.add(Direction.UP);
-                s.add(Direction.DOWN);
-            }
-
-            // Cruzamentos horizontais (apenas LEFT/RIGHT)
-            case CRUZAMENTO_DIREITA, CRUZAMENTO_ESQUERDA -> {
-                s.add(Direction.LEFT);
-                s.add(Direction.RIGHT);
-            }
-
-            // Cruzamentos 2-vias (vertical + horizontal)
-            case CRUZAMENTO_CIMA_DIREITA,
-                    CRUZAMENTO_CIMA_ESQUERDA,
-                    CRUZAMENTO_DIREITA_BAIXO,
-                    CRUZAMENTO_ESQUERDA_BAIXO -> {
-                s.add(Direction.UP);
-                s.add(Direction.DOWN);
-                s.add(Direction.LEFT);
-                s.add(Direction.RIGHT);
-            }
-
-            // Não é cruzamento válido (ou NADA): retorna vazio
-            default -> {}
+        int mask = exitDirMask(code);
+        for (Direction d : DIRECTIONS) {
+            if ((mask & bit(d)) != 0) s.add(d);
         }
         return s;
     }
 
-    /**
-     * Converte o inteiro do grid em {@link LaneCode}.
-     * @param code código bruto da célula
-     * @return enum correspondente ou null se não encontrado
-     */
-    private static LaneCode fromCode(int code) {
-        for (LaneCode lc : LaneCode.values()) if (lc.getCodigo() == code) return lc;
-        return null;
-    }
-
 
 }
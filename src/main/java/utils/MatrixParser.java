@@ -1,36 +1,83 @@
 package utils;
 
-import java.io.BufferedReader;
+import app.model.Grid;
+
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public final class MatrixParser {
     private MatrixParser() {}
 
-    /** Continua funcionando para arquivos no filesystem (ex.: durante desenvolvimento). */
+    /** Acima deste número de células as linhas da matriz são convertidas em paralelo. */
+    private static final long PARALLEL_CELLS = 1L << 20;
+    /** Linhas por tarefa na conversão paralela. */
+    private static final int ROWS_PER_CHUNK = 64;
+
+    /**
+     * Continua funcionando para arquivos no filesystem (ex.: durante desenvolvimento).
+     * O arquivo é mapeado em memória ({@link FileChannel#map}) e lido direto dos bytes,
+     * sem criar uma String por célula.
+     */
     public static int[][] readMatrix(Path file) throws IOException {
-        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-            return parse(br);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para mapear: " + size + " bytes.");
+            }
+            return parse(ch.map(FileChannel.MapMode.READ_ONLY, 0, size), new MatrixTarget());
         }
     }
 
     /** Novo: lê a matriz a partir de um InputStream (útil para resources no classpath). */
     public static int[][] readMatrix(InputStream in) throws IOException {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-            return parse(br);
+        try (in) {
+            return parse(ByteBuffer.wrap(in.readAllBytes()), new MatrixTarget());
+        }
+    }
+
+    /**
+     * Lê o arquivo direto para uma {@link Grid} (1 byte por célula), sem passar pelo {@code int[][]}.
+     * Códigos fora de 0..255 são rejeitados com linha/coluna do token.
+     */
+    public static Grid readGrid(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para mapear: " + size + " bytes.");
+            }
+            return parse(ch.map(FileChannel.MapMode.READ_ONLY, 0, size), new GridTarget());
+        }
+    }
+
+    /** Igual a {@link #readGrid(Path)}, a partir de um InputStream. */
+    public static Grid readGrid(InputStream in) throws IOException {
+        try (in) {
+            return parse(ByteBuffer.wrap(in.readAllBytes()), new GridTarget());
         }
     }
 
+    /** Igual a {@link #readMatrixResource(String)}, devolvendo uma {@link Grid}. */
+    public static Grid readGridResource(String resourcePath) throws IOException {
+        return readGrid(openResource(resourcePath));
+    }
+
     /**
      * Novo: lê diretamente de um recurso dentro de src/main/resources.
      * Ex.: readMatrixResource("/malhas/malha-exemplo-1.txt")
      */
     public static int[][] readMatrixResource(String resourcePath) throws IOException {
+        return readMatrix(openResource(resourcePath));
+    }
+
+    private static InputStream openResource(String resourcePath) throws IOException {
         if (resourcePath == null || resourcePath.isBlank()) {
             throw new IllegalArgumentException("resourcePath não pode ser nulo/vazio.");
         }
@@ -41,23 +88,67 @@ public final class MatrixParser {
         if (in == null) {
             throw new FileNotFoundException("Recurso não encontrado no classpath: " + rp);
         }
-        return readMatrix(in);
+        return in;
     }
 
     // ---------------------- implementação interna reaproveitada ----------------------
 
-    private static int[][] parse(BufferedReader br) throws IOException {
-        String line1 = nextDataLine(br);
-        String line2 = nextDataLine(br);
+    /** Destino da conversão: recebe as dimensões e depois cada linha (linhas diferentes podem vir em paralelo). */
+    private abstract static class Target<T> {
+        abstract void begin(int rows, int cols);
+        abstract void row(int r, int[] values) throws IOException;
+        abstract T result();
+    }
+
+    /** Formato antigo: uma linha de {@code int} por linha da malha. */
+    private static final class MatrixTarget extends Target<int[][]> {
+        private int[][] grid;
+        @Override void begin(int rows, int cols) { grid = new int[rows][]; }
+        @Override void row(int r, int[] values) { grid[r] = values.clone(); }
+        @Override int[][] result() { return grid; }
+    }
 
-        if (line1 == null || line2 == null) {
+    /** {@link Grid}: 1 byte por célula num único array (códigos precisam caber em 0..255). */
+    private static final class GridTarget extends Target<Grid> {
+        private byte[] data;
+        private int rows, cols;
+        @Override void begin(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            this.data = new byte[Math.multiplyExact(rows, cols)];
+        }
+        @Override void row(int r, int[] values) throws IOException {
+            for (int c = 0; c < cols; c++) {
+                if (values[c] < 0 || values[c] > 0xFF) {
+                    throw new IOException(String.format(
+                            "Código %d na linha %d, coluna %d não cabe em um byte.", values[c], r + 1, c + 1));
+                }
+                data[r * cols + c] = (byte) values[c];
+            }
+        }
+        @Override Grid result() { return Grid.wrap(ByteBuffer.wrap(data), rows, cols); }
+    }
+
+    /**
+     * Converte o conteúdo (texto ASCII/UTF-8) em matriz, varrendo os bytes diretamente.
+     *
+     * 1) Uma passada sequencial acha o início/fim de cada linha de dados (linhas em branco são ignoradas).
+     * 2) As duas primeiras dão as dimensões; as {@code rows} seguintes são convertidas — em paralelo
+     *    (blocos de linhas) quando a matriz é grande. Cada linha é independente, então o resultado e
+     *    o erro reportado (o da primeira linha inválida) são os mesmos da leitura sequencial.
+     */
+    private static <T> T parse(ByteBuffer buf, Target<T> target) throws IOException {
+        int[] lines = dataLines(buf); // pares [início, fim) por linha de dados
+        int lineCount = lines.length / 2;
+
+        if (lineCount < 2) {
             throw new IOException("Arquivo incompleto: faltam linhas de dimensões.");
         }
 
         final int rows, cols;
         try {
-            rows = Integer.parseInt(line1.trim());
-            cols = Integer.parseInt(line2.trim());
+            rows = Integer.parseInt(text(buf, lines[0], lines[1]).trim());
+            cols = Integer.parseInt(text(buf, lines[2], lines[3]).trim());
         } catch (NumberFormatException e) {
             throw new IOException("As duas primeiras linhas devem conter inteiros (linhas e colunas).", e);
         }
@@ -65,45 +156,148 @@ public final class MatrixParser {
             throw new IOException("Linhas e colunas devem ser > 0. Lidas: " + rows + "x" + cols);
         }
 
-        int[][] grid = new int[rows][cols];
+        target.begin(rows, cols);
+        // Linhas presentes no arquivo: um erro nelas vem antes do "arquivo terminou" (mesma ordem da leitura linha a linha)
+        int available = Math.min(rows, lineCount - 2);
 
-        for (int r = 0; r < rows; r++) {
-            String line = nextDataLine(br);
-            if (line == null) {
-                throw new IOException("Arquivo terminou antes de ler todas as " + rows + " linhas da matriz (faltou a linha " + (r + 1) + ").");
+        if ((long) available * cols < PARALLEL_CELLS) {
+            int[] row = new int[cols];
+            for (int r = 0; r < available; r++) {
+                parseRow(buf, lines[2 * (r + 2)], lines[2 * (r + 2) + 1], r, row);
+                target.row(r, row);
+            }
+        } else {
+            // Blocos de linhas em paralelo; guarda o erro de cada bloco e reporta o da menor linha
+            int chunks = (available + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK;
+            IOException[] errors = new IOException[chunks];
+            IntStream.range(0, chunks).parallel().forEach(k -> {
+                int end = Math.min(available, (k + 1) * ROWS_PER_CHUNK);
+                int[] row = new int[cols];
+                try {
+                    for (int r = k * ROWS_PER_CHUNK; r < end; r++) {
+                        parseRow(buf, lines[2 * (r + 2)], lines[2 * (r + 2) + 1], r, row);
+                        target.row(r, row);
+                    }
+                } catch (IOException e) {
+                    errors[k] = e;
+                }
+            });
+            for (IOException e : errors) {
+                if (e != null) throw e;
             }
+        }
 
-            // Aceita separação por tabs ou espaços múltiplos
-            String[] tokens = line.trim().split("\\s+");
-            if (tokens.length != cols) {
-                throw new IOException(String.format(
-                        "Quantidade de colunas inválida na linha %d. Esperado: %d, Encontrado: %d",
-                        r + 1, cols, tokens.length
-                ));
+        if (available < rows) {
+            throw new IOException("Arquivo terminou antes de ler todas as " + rows + " linhas da matriz (faltou a linha " + (available + 1) + ").");
+        }
+        return target.result();
+    }
+
+    /**
+     * Posições [início, fim) de cada linha não vazia (mesma regra do antigo {@code readLine} + {@code trim}:
+     * terminadores \n, \r ou \r\n; linha só com bytes <= ' ' é ignorada).
+     */
+    private static int[] dataLines(ByteBuffer buf) {
+        int[] out = new int[64];
+        int n = 0;
+        int limit = buf.limit();
+        int start = 0;
+        boolean blank = true;
+        for (int i = 0; i <= limit; i++) {
+            byte b = (i < limit) ? buf.get(i) : (byte) '\n';
+            if (b == '\n' || b == '\r') {
+                if (!blank) {
+                    if (n + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                    out[n++] = start;
+                    out[n++] = i;
+                }
+                start = i + 1;
+                blank = true;
+            } else if ((b & 0xFF) > ' ') {
+                blank = false;
             }
+        }
+        return Arrays.copyOf(out, n);
+    }
 
-            for (int c = 0; c < cols; c++) {
-                try {
-                    int val = Integer.parseInt(tokens[c]);
-                    grid[r][c] = val;
-                } catch (NumberFormatException e) {
-                    throw new IOException(String.format(
-                            "Token não numérico na linha %d, coluna %d: \"%s\"", r + 1, c + 1, tokens[c]
-                    ), e);
+    /**
+     * Converte uma linha da matriz em {@code row}, token a token, sem alocar.
+     * Mesmas validações do {@code split("\\s+")} + {@code Integer.parseInt}: primeiro a quantidade
+     * de colunas, depois o primeiro token não numérico (linha e coluna contadas a partir de 1).
+     */
+    private static void parseRow(ByteBuffer buf, int from, int to, int r, int[] row) throws IOException {
+        int cols = row.length;
+        int count = 0;
+        int badStart = -1, badEnd = -1, badCol = -1;
+
+        int i = from;
+        while (true) {
+            while (i < to && isSpace(buf.get(i))) i++;
+            if (i >= to) break;
+            int tokStart = i;
+            while (i < to && !isSpace(buf.get(i))) i++;
+
+            if (count < cols && badStart < 0) {
+                long v = parseInt(buf, tokStart, i);
+                if (v == Long.MIN_VALUE) {
+                    badStart = tokStart;
+                    badEnd = i;
+                    badCol = count;
+                } else {
+                    row[count] = (int) v;
                 }
             }
+            count++;
         }
 
-        return grid;
+        if (count != cols) {
+            throw new IOException(String.format(
+                    "Quantidade de colunas inválida na linha %d. Esperado: %d, Encontrado: %d",
+                    r + 1, cols, count
+            ));
+        }
+        if (badStart >= 0) {
+            String token = text(buf, badStart, badEnd);
+            throw new IOException(String.format(
+                    "Token não numérico na linha %d, coluna %d: \"%s\"", r + 1, badCol + 1, token
+            ), new NumberFormatException("For input string: \"" + token + "\""));
+        }
     }
 
-    /** Lê próxima linha de dados, ignorando linhas vazias/whitespace. */
-    private static String nextDataLine(BufferedReader br) throws IOException {
-        String line;
-        while ((line = br.readLine()) != null) {
-            if (!line.trim().isEmpty()) return line;
+    /** Separadores aceitos entre colunas (tabs ou espaços múltiplos). */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f';
+    }
+
+    /**
+     * Inteiro decimal com sinal opcional (como {@link Integer#parseInt}).
+     * @return o valor, ou {@code Long.MIN_VALUE} se o token não for um int válido
+     */
+    private static long parseInt(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        byte first = buf.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == to) return Long.MIN_VALUE;
         }
-        return null;
+        long v = 0;
+        for (; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            v = v * 10 + d;
+            if (v > (long) Integer.MAX_VALUE + 1) return Long.MIN_VALUE;
+        }
+        v = negative ? -v : v;
+        return (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) ? Long.MIN_VALUE : v;
+    }
+
+    /** Trecho [from, to) como texto (só para mensagens e dimensões). */
+    private static String text(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     public static void printMatrix(int[][] grid) {
@@ -0,0 +1,133 @@
+package utils;
+
+import app.model.Grid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binário compacto de malha (alternativa ao texto lido pelo {@link MatrixParser}).
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   0  "MALH"            magic (4 bytes)
+ *   4  versão            int (atualmente 1)
+ *   8  linhas            int
+ *  12  colunas           int
+ *  16  células           linhas * colunas bytes, linha a linha (códigos 0..255; LaneCode usa 0..12)
+ *   .  CRC32             int, calculado sobre as células
+ * </pre>
+ *
+ * A leitura mapeia o arquivo e devolve uma {@link Grid} direto sobre os bytes das células,
+ * sem converter nada: o custo de carga é só o do mapeamento + conferência do CRC.
+ *
+ * Conversão pela linha de comando: {@code java utils.MeshBinary malha.txt malha.bin}
+ * (ou {@code ./gradlew convertMesh --args="malha.txt malha.bin"}).
+ */
+public final class MeshBinary {
+    private MeshBinary() {}
+
+    private static final int MAGIC = ('M' << 24) | ('A' << 16) | ('L' << 8) | 'H';
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int CRC_BYTES = 4;
+
+    /* ===================== ESCRITA ===================== */
+
+    /** Grava a malha no formato binário. */
+    public static void write(Path file, Grid grid) throws IOException {
+        int rows = grid.rows, cols = grid.cols;
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + rows * cols + CRC_BYTES).order(ByteOrder.BIG_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols);
+        buf.put(grid.cells());
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_BYTES, rows * cols);
+        buf.putInt((int) crc.getValue());
+
+        Files.write(file, buf.array());
+    }
+
+    /** Converte uma malha em texto (formato do {@link MatrixParser}) para o formato binário. */
+    public static void convert(Path textFile, Path binaryFile) throws IOException {
+        write(binaryFile, MatrixParser.readGrid(textFile));
+    }
+
+    /* ===================== LEITURA ===================== */
+
+    /** Mapeia o arquivo e devolve a visão sobre as células (valida cabeçalho, tamanho e CRC). */
+    public static Grid read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para mapear: " + size + " bytes.");
+            }
+            // O mapeamento continua válido depois de fechar o canal
+            return parse(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /** Mesma leitura a partir de um stream (ex.: recurso no classpath); aqui os bytes são copiados uma vez. */
+    public static Grid read(InputStream in) throws IOException {
+        try (in) {
+            return parse(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    /** Verifica pelo magic se o arquivo está no formato binário. */
+    public static boolean isBinary(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && ch.read(head) >= 0) { }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    private static Grid parse(ByteBuffer buf) throws IOException {
+        buf.order(ByteOrder.BIG_ENDIAN);
+        if (buf.limit() < HEADER_BYTES + CRC_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("Não é uma malha binária (magic inválido).");
+        }
+        int version = buf.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versão de malha binária não suportada: " + version);
+        }
+        int rows = buf.getInt(8), cols = buf.getInt(12);
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException("Linhas e colunas devem ser > 0. Lidas: " + rows + "x" + cols);
+        }
+        long cellCount = (long) rows * cols;
+        if (buf.limit() != HEADER_BYTES + cellCount + CRC_BYTES) {
+            throw new IOException(String.format(
+                    "Tamanho inválido: esperado %d bytes para %dx%d, encontrado %d.",
+                    HEADER_BYTES + cellCount + CRC_BYTES, rows, cols, buf.limit()));
+        }
+
+        ByteBuffer cells = buf.slice(HEADER_BYTES, (int) cellCount).asReadOnlyBuffer();
+        CRC32 crc = new CRC32();
+        crc.update(cells.duplicate());
+        int expected = buf.getInt(HEADER_BYTES + (int) cellCount);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Malha binária corrompida (CRC32 não confere).");
+        }
+        return Grid.wrap(cells, rows, cols);
+    }
+
+    /** Conversor texto → binário: {@code MeshBinary <entrada.txt> <saida.bin>}. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: MeshBinary <malha.txt> <malha.bin>");
+            System.exit(2);
+        }
+        Path in = Path.of(args[0]), out = Path.of(args[1]);
+        convert(in, out);
+        System.out.printf("%s (%d bytes) -> %s (%d bytes)%n", in, Files.size(in), out, Files.size(out));
+    }
+}
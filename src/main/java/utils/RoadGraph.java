@@ -0,0 +1,272 @@
+package utils;
+
+import app.model.Grid;
+import app.model.enums.Direction;
+import app.model.enums.LaneCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Grafo viário imutável "compilado" a partir da malha bruta ({@link app.model.Grid} lida pelo {@link MatrixParser}).
+ *
+ * Estrutura:
+ * - {@link Edge}: trecho reto de células com o mesmo código de via (1..4), com comprimento em células.
+ * - {@link Node}: cruzamento — bloco 2x2 ({9,10,11,12}) ou célula de cruzamento isolada (5..12) —
+ *   com todas as conversões ({@link Turn}) legais, já validadas pelas mesmas regras do {@link CrossPlanner}.
+ * - Índices por célula ({@link #edgeAt}, {@link #nodeAt}, {@link #remainingOnEdge}) para consultas O(1).
+ *
+ * Com isso o carro raciocina por TRECHO: ao entrar num trecho consulta {@link #remainingOnEdge} uma
+ * vez e anda as células restantes só descontando um contador, sem ler nem reclassificar a malha; a
+ * próxima célula só é classificada no fim do trecho. As conversões já registram o trecho de chegada
+ * ({@link Turn#toEdge}), mas a escolha da saída num cruzamento continua sendo sorteada (não há roteamento).
+ *
+ * Concorrência: depois de compilado nada muda, então pode ser lido por qualquer thread.
+ */
+public final class RoadGraph {
+
+    /** Trecho reto de via (mão única). */
+    public static final class Edge {
+        public final int id;
+        public final Direction direction;
+        /** Primeira e última célula do trecho (inclusivas), no sentido da via. */
+        public final int startRow, startCol, endRow, endCol;
+        /** Comprimento em células. */
+        public final int length;
+        /** Cruzamento de onde o trecho sai (-1 se começa na borda ou fora de cruzamento). */
+        public final int fromNode;
+        /** Cruzamento onde o trecho termina (-1 se sai da malha ou não desemboca em cruzamento). */
+        public final int toNode;
+
+        Edge(int id, Direction direction, int startRow, int startCol, int endRow, int endCol,
+             int length, int fromNode, int toNode) {
+            this.id = id;
+            this.direction = direction;
+            this.startRow = startRow; this.startCol = startCol;
+            this.endRow = endRow; this.endCol = endCol;
+            this.length = length;
+            this.fromNode = fromNode;
+            this.toNode = toNode;
+        }
+    }
+
+    /** Conversão legal dentro de um cruzamento. */
+    public static final class Turn {
+        /** Primeira célula interna pela qual o carro entra e direção de chegada. */
+        public final int entryRow, entryCol;
+        public final Direction entryDir;
+        /** Caminho a reservar (todas internas + 1ª fora) e direção de saída — mesmo formato do {@link CrossPlanner.Path}. */
+        public final CrossPlanner.Path path;
+        /** Trecho em que o carro cai ao sair (-1 se a célula de saída não pertence a um trecho). */
+        public final int toEdge;
+
+        Turn(int entryRow, int entryCol, Direction entryDir, CrossPlanner.Path path, int toEdge) {
+            this.entryRow = entryRow; this.entryCol = entryCol;
+            this.entryDir = entryDir;
+            this.path = path;
+            this.toEdge = toEdge;
+        }
+    }
+
+    /** Cruzamento (bloco 2x2 ou célula isolada). */
+    public static final class Node {
+        public final int id;
+        /** Top-left do cruzamento e tamanho do lado (2 para blocos 2x2, 1 para células isoladas). */
+        public final int topRow, topCol, size;
+        public final List<Turn> turns;
+
+        Node(int id, int topRow, int topCol, int size, List<Turn> turns) {
+            this.id = id;
+            this.topRow = topRow; this.topCol = topCol;
+            this.size = size;
+            this.turns = Collections.unmodifiableList(turns);
+        }
+    }
+
+    /** Último grafo compilado e a malha à qual ele pertence (recompilado se a malha mudar). */
+    private static volatile RoadGraph cached;
+
+    private final Grid grid;
+    private final int rows, cols;
+    private final List<Edge> edges;
+    private final List<Node> nodes;
+    /** Por célula: id do trecho (-1 = nenhum), posição dentro do trecho e id do cruzamento (-1 = nenhum). */
+    private final int[] edgeOfCell;
+    private final int[] posInEdge;
+    private final int[] nodeOfCell;
+
+    private RoadGraph(Grid grid, List<Edge> edges, List<Node> nodes,
+                      int[] edgeOfCell, int[] posInEdge, int[] nodeOfCell) {
+        this.grid = grid;
+        this.rows = grid.rows;
+        this.cols = grid.cols;
+        this.edges = Collections.unmodifiableList(edges);
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.edgeOfCell = edgeOfCell;
+        this.posInEdge = posInEdge;
+        this.nodeOfCell = nodeOfCell;
+    }
+
+    /**
+     * Grafo da malha informada, reaproveitando o último compilado se for a mesma malha.
+     */
+    public static RoadGraph forGrid(Grid grid) {
+        RoadGraph g = cached;
+        if (g == null || g.grid != grid) {
+            g = compile(grid);
+            cached = g;
+        }
+        return g;
+    }
+
+    /**
+     * Compila a malha: 1) cruzamentos (nós), 2) trechos retos (arestas), 3) conversões de cada nó.
+     */
+    public static RoadGraph compile(Grid grid) {
+        int rows = grid.rows, cols = grid.cols;
+        int[] nodeOfCell = new int[rows * cols];
+        int[] edgeOfCell = new int[rows * cols];
+        int[] posInEdge = new int[rows * cols];
+        Arrays.fill(nodeOfCell, -1);
+        Arrays.fill(edgeOfCell, -1);
+
+        // 1) Cruzamentos: blocos 2x2 primeiro, depois células de cruzamento que sobraram
+        List<int[]> nodeShapes = new ArrayList<>(); // {topRow, topCol, size}
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (nodeOfCell[r * cols + c] >= 0 || !LaneCode.isOnCrossroad(grid.get(r, c))) continue;
+                int[] tl = CrossPlanner.find2x2TopLeft(grid, r, c);
+                int size = 1;
+                if (tl != null && tl[0] == r && tl[1] == c && free2x2(nodeOfCell, cols, r, c)) {
+                    size = 2;
+                }
+                int id = nodeShapes.size();
+                nodeShapes.add(new int[]{r, c, size});
+                for (int dr = 0; dr < size; dr++)
+                    for (int dc = 0; dc < size; dc++)
+                        nodeOfCell[(r + dr) * cols + (c + dc)] = id;
+            }
+        }
+
+        // 2) Trechos retos: começam onde a célula anterior (no sentido da via) não tem o mesmo código
+        List<Edge> edges = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int code = grid.get(r, c);
+                if (!LaneCode.isRoad(code) || edgeOfCell[r * cols + c] >= 0) continue;
+                Direction d = Direction.ofLaneCode(code);
+                int pr = r - d.dirRow, pc = c - d.dirCol;
+                if (inside(rows, cols, pr, pc) && grid.get(pr, pc) == code) continue; // não é início
+
+                int id = edges.size();
+                int len = 0, er = r, ec = c;
+                for (int rr = r, cc = c; inside(rows, cols, rr, cc) && grid.get(rr, cc) == code; rr += d.dirRow, cc += d.dirCol) {
+                    edgeOfCell[rr * cols + cc] = id;
+                    posInEdge[rr * cols + cc] = len++;
+                    er = rr; ec = cc;
+                }
+                int nr = er + d.dirRow, nc = ec + d.dirCol;
+                int fromNode = inside(rows, cols, pr, pc) ? nodeOfCell[pr * cols + pc] : -1;
+                int toNode = inside(rows, cols, nr, nc) ? nodeOfCell[nr * cols + nc] : -1;
+                edges.add(new Edge(id, d, r, c, er, ec, len, fromNode, toNode));
+            }
+        }
+
+        // 3) Conversões legais de cada cruzamento
+        List<Node> nodes = new ArrayList<>(nodeShapes.size());
+        for (int id = 0; id < nodeShapes.size(); id++) {
+            int[] s = nodeShapes.get(id);
+            List<Turn> turns = new ArrayList<>();
+            if (s[2] == 2) {
+                turns2x2(grid, cols, edgeOfCell, s[0], s[1], turns);
+            } else {
+                turnsSimple(grid, cols, edgeOfCell, s[0], s[1], turns);
+            }
+            nodes.add(new Node(id, s[0], s[1], s[2], turns));
+        }
+
+        return new RoadGraph(grid, edges, nodes, edgeOfCell, posInEdge, nodeOfCell);
+    }
+
+    /** Conversões de um bloco 2x2: para cada lado de entrada, cada célula de entrada e cada saída. */
+    private static void turns2x2(Grid g, int cols, int[] edgeOfCell, int tlr, int tlc, List<Turn> out) {
+        int[][] cells = CrossPlanner.corners2x2(tlr, tlc);
+        for (Direction entryDir : Direction.values()) {
+            for (int entryIdx = 0; entryIdx < 4; entryIdx++) {
+                int[] e = cells[entryIdx];
+                // A célula de entrada precisa estar na borda do bloco voltada para quem chega
+                int br = e[0] - entryDir.dirRow, bc = e[1] - entryDir.dirCol;
+                if (br >= tlr && br <= tlr + 1 && bc >= tlc && bc <= tlc + 1) continue;
+                for (Direction exit : Direction.values()) {
+                    if (exit == LaneSupport.opposite(entryDir)) continue;
+                    CrossPlanner.Path p = CrossPlanner.path2x2(g, entryDir, entryIdx, exit, cells);
+                    if (p != null) out.add(new Turn(e[0], e[1], entryDir, p, edgeAtExit(p, cols, edgeOfCell)));
+                }
+            }
+        }
+    }
+
+    /** Conversões de uma célula de cruzamento isolada (mesmas regras do {@link CrossPlanner#planSimple}). */
+    private static void turnsSimple(Grid g, int cols, int[] edgeOfCell, int r, int c, List<Turn> out) {
+        for (Direction entryDir : Direction.values()) {
+            int exits = LaneSupport.exitDirMask(g.get(r, c));
+            for (Direction exit : Direction.values()) {
+                if ((exits & LaneSupport.bit(exit)) == 0 || exit == LaneSupport.opposite(entryDir)) continue;
+                int nr = r + exit.dirRow, nc = c + exit.dirCol;
+                if (!inside(g.rows, cols, nr, nc) || !LaneSupport.supportsDir(g.get(nr, nc), exit)) continue;
+                List<int[]> cells = List.of(new int[]{r, c}, new int[]{nr, nc});
+                CrossPlanner.Path p = new CrossPlanner.Path(cells, exit);
+                out.add(new Turn(r, c, entryDir, p, edgeAtExit(p, cols, edgeOfCell)));
+            }
+        }
+    }
+
+    private static int edgeAtExit(CrossPlanner.Path p, int cols, int[] edgeOfCell) {
+        int[] out = p.cells.get(p.cells.size() - 1);
+        return edgeOfCell[out[0] * cols + out[1]];
+    }
+
+    private static boolean free2x2(int[] nodeOfCell, int cols, int r, int c) {
+        return nodeOfCell[r * cols + c + 1] < 0
+                && nodeOfCell[(r + 1) * cols + c] < 0
+                && nodeOfCell[(r + 1) * cols + c + 1] < 0;
+    }
+
+    private static boolean inside(int rows, int cols, int r, int c) {
+        return r >= 0 && c >= 0 && r < rows && c < cols;
+    }
+
+    /* ===================== CONSULTAS ===================== */
+
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    /** Id do trecho que contém a célula, ou -1. */
+    public int edgeAt(int r, int c) {
+        return edgeOfCell[r * cols + c];
+    }
+
+    /** Id do cruzamento que contém a célula, ou -1. */
+    public int nodeAt(int r, int c) {
+        return nodeOfCell[r * cols + c];
+    }
+
+    /**
+     * Quantas células ainda faltam no trecho à frente de (r, c) seguindo na direção {@code dir}.
+     * Retorna 0 se a célula não está num trecho ou se {@code dir} não é o sentido da via.
+     */
+    public int remainingOnEdge(int r, int c, Direction dir) {
+        int e = edgeOfCell[r * cols + c];
+        if (e < 0) return 0;
+        Edge edge = edges.get(e);
+        if (edge.direction != dir) return 0;
+        return edge.length - 1 - posInEdge[r * cols + c];
+    }
+}
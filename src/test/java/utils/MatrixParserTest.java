@@ -0,0 +1,130 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Validações do {@link MatrixParser}: mensagens de erro (linha/coluna contadas a partir de 1),
+ * linhas em branco e CRLF, e qual erro é reportado quando a matriz é convertida em paralelo.
+ */
+class MatrixParserTest {
+
+    private static int[][] read(String text) throws IOException {
+        return MatrixParser.readMatrix(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String error(String text) {
+        return assertThrows(IOException.class, () -> read(text)).getMessage();
+    }
+
+    @Test
+    void leMatrizValida() throws IOException {
+        assertArrayEquals(new int[][]{{1, 2, 3}, {4, 5, 6}}, read("2\n3\n1 2 3\n4\t5  6\n"));
+    }
+
+    @Test
+    void ignoraLinhasEmBrancoECrlf() throws IOException {
+        String text = "\r\n2\r\n  \r\n3\r\n1 2 3\r\n\r\n\t\r\n4 5 6\r\n\r\n";
+        assertArrayEquals(new int[][]{{1, 2, 3}, {4, 5, 6}}, read(text));
+        // \r sozinho também termina a linha
+        assertArrayEquals(new int[][]{{1, 2, 3}, {4, 5, 6}}, read("2\r3\r1 2 3\r4 5 6"));
+    }
+
+    @Test
+    void quantidadeDeColunasErrada() {
+        assertEquals("Quantidade de colunas inválida na linha 2. Esperado: 3, Encontrado: 2",
+                error("2\n3\n1 2 3\n4 5\n"));
+        assertEquals("Quantidade de colunas inválida na linha 1. Esperado: 3, Encontrado: 4",
+                error("2\n3\n1 2 3 4\n4 5 6\n"));
+    }
+
+    @Test
+    void tokenNaoNumerico() {
+        IOException e = assertThrows(IOException.class, () -> read("2\n3\n1 2 3\n4 x5 6\n"));
+        assertEquals("Token não numérico na linha 2, coluna 2: \"x5\"", e.getMessage());
+        assertInstanceOf(NumberFormatException.class, e.getCause());
+        // Fora do intervalo de int também não é numérico
+        assertEquals("Token não numérico na linha 1, coluna 3: \"2147483648\"",
+                error("1\n3\n1 2 2147483648\n"));
+    }
+
+    @Test
+    void colunasErradasVencemTokenInvalidoNaMesmaLinha() {
+        assertEquals("Quantidade de colunas inválida na linha 1. Esperado: 3, Encontrado: 2",
+                error("1\n3\nx 2\n"));
+    }
+
+    @Test
+    void linhaFaltando() {
+        assertEquals("Arquivo terminou antes de ler todas as 3 linhas da matriz (faltou a linha 3).",
+                error("3\n2\n1 2\n\r\n3 4\n\n"));
+        assertEquals("Arquivo incompleto: faltam linhas de dimensões.", error("3\n\n"));
+    }
+
+    @Test
+    void erroNumaLinhaPresenteVemAntesDaLinhaFaltando() {
+        assertEquals("Token não numérico na linha 2, coluna 1: \"?\"", error("3\n2\n1 2\n? 4\n"));
+    }
+
+    @Test
+    void dimensoesInvalidas() {
+        assertEquals("As duas primeiras linhas devem conter inteiros (linhas e colunas).", error("a\n2\n1 2\n"));
+        assertEquals("Linhas e colunas devem ser > 0. Lidas: 0x2", error("0\n2\n"));
+    }
+
+    // ---------------------- caminho paralelo (matriz com >= 2^20 células) ----------------------
+
+    private static final int BIG_ROWS = 1100;
+    private static final int BIG_COLS = 1000;
+
+    /** Matriz grande o bastante para a conversão em blocos paralelos; {@code row(r)} dá o texto da linha r (base 0). */
+    private static String bigMatrix(IntFunction<String> row) {
+        String plain = "1 ".repeat(BIG_COLS - 1) + "1";
+        StringBuilder sb = new StringBuilder(BIG_ROWS * (BIG_COLS * 2 + 2));
+        sb.append(BIG_ROWS).append("\r\n").append(BIG_COLS).append("\r\n");
+        for (int r = 0; r < BIG_ROWS; r++) {
+            String custom = row.apply(r);
+            sb.append(custom != null ? custom : plain).append("\r\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void paraleloLeMatrizValida() throws IOException {
+        int[][] m = read(bigMatrix(r -> null));
+        assertEquals(BIG_ROWS, m.length);
+        assertEquals(BIG_COLS, m[BIG_ROWS - 1].length);
+        assertEquals(1, m[BIG_ROWS - 1][BIG_COLS - 1]);
+    }
+
+    @Test
+    void paraleloReportaOErroDaMenorLinha() {
+        String shortRow = "1 ".repeat(BIG_COLS - 2) + "1";
+        String badToken = "1 ".repeat(BIG_COLS - 1) + "z";
+        // Erros em três blocos diferentes (linhas 71, 501 e 901): vence sempre o da menor linha
+        String text = bigMatrix(r -> r == 900 ? shortRow : r == 70 ? badToken : r == 500 ? shortRow : null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Token não numérico na linha 71, coluna " + BIG_COLS + ": \"z\"", error(text));
+        }
+    }
+
+    @Test
+    void paraleloErroNoBlocoVemAntesDaLinhaFaltando() {
+        String shortRow = "1 ".repeat(BIG_COLS - 2) + "1";
+        // Declara uma linha a mais do que o arquivo tem, com erro numa linha presente
+        String text = (BIG_ROWS + 1) + bigMatrix(r -> r == 1000 ? shortRow : null)
+                .substring(String.valueOf(BIG_ROWS).length());
+        assertEquals("Quantidade de colunas inválida na linha 1001. Esperado: " + BIG_COLS
+                + ", Encontrado: " + (BIG_COLS - 1), error(text));
+
+        String missing = (BIG_ROWS + 1) + bigMatrix(r -> null).substring(String.valueOf(BIG_ROWS).length());
+        assertEquals("Arquivo terminou antes de ler todas as " + (BIG_ROWS + 1)
+                + " linhas da matriz (faltou a linha " + (BIG_ROWS + 1) + ").", error(missing));
+    }
+}